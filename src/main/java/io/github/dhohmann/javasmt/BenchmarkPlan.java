@@ -0,0 +1,262 @@
+package io.github.dhohmann.javasmt;
+
+import org.sosy_lab.java_smt.SolverContextFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * Experiment design read from a properties file. The plan is expanded into
+ * cells (model &times; variant &times; backend &times; timeout), each of them
+ * executed with the configured number of iterations. Example:
+ *
+ * <pre>
+ * models = *
+ * variants = plain, attr, count_attr, count_constraints_attr
+ * variant.plain =
+ * variant.attr = attributes
+ * variant.count_attr = attributes count
+ * variant.count_constraints_attr = attributes count constraints
+ * backends = Z3
+ * timeouts = 30
+ * iterations = 5
+ * warmup = 1
+ * </pre>
+ */
+public class BenchmarkPlan {
+
+	public static final String ALL_MODELS = "*";
+
+	private List<String> models = Collections.singletonList(ALL_MODELS);
+	private final Map<String, Variant> variants = new LinkedHashMap<>();
+	private List<SolverContextFactory.Solvers> backends = Collections.singletonList(ModelTest.SOLVER);
+	private List<Long> timeouts = Collections.singletonList(ModelTest.TIMEOUT);
+	private int iterations = ModelTest.ITERATIONS;
+	private int warmup = 1;
+
+	/**
+	 * @return the plan equivalent to the fixed experiment of {@link ModelTest}
+	 */
+	public static BenchmarkPlan getDefault() {
+		BenchmarkPlan plan = new BenchmarkPlan();
+		plan.addVariant(new Variant("plain", false, false, false));
+		plan.addVariant(new Variant("attr", true, false, false));
+		plan.addVariant(new Variant("count_attr", true, true, false));
+		plan.addVariant(new Variant("count_constraints_attr", true, true, true));
+		return plan;
+	}
+
+	public static BenchmarkPlan load(File file) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+
+		BenchmarkPlan plan = getDefault();
+		if (properties.containsKey("models")) {
+			plan.models = list(properties.getProperty("models"));
+		}
+		if (properties.containsKey("variants")) {
+			plan.variants.clear();
+			for (String name : list(properties.getProperty("variants"))) {
+				String options = properties.getProperty("variant." + name);
+				if (options == null) {
+					throw new IOException("Variant " + name + " is not defined in " + file);
+				}
+				plan.addVariant(Variant.parse(name, options));
+			}
+		}
+		if (properties.containsKey("backends")) {
+			plan.backends = list(properties.getProperty("backends")).stream()
+				.map(SolverContextFactory.Solvers::valueOf)
+				.collect(Collectors.toList());
+		}
+		if (properties.containsKey("timeouts")) {
+			plan.timeouts = list(properties.getProperty("timeouts")).stream()
+				.map(Long::parseLong)
+				.collect(Collectors.toList());
+		}
+		if (properties.containsKey("iterations")) {
+			plan.setIterations(Integer.parseInt(properties.getProperty("iterations").trim()));
+		}
+		if (properties.containsKey("warmup")) {
+			plan.warmup = Integer.parseInt(properties.getProperty("warmup").trim());
+		}
+		return plan;
+	}
+
+	private static List<String> list(String value) {
+		return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors
+			.toList());
+	}
+
+	public void addVariant(Variant variant) {
+		variants.put(variant.getName(), variant);
+	}
+
+	public void setIterations(int iterations) {
+		if (iterations <= 0) {
+			throw new IllegalArgumentException("Iterations cannot be 0 or negative");
+		}
+		this.iterations = iterations;
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	public int getWarmup() {
+		return warmup;
+	}
+
+	/**
+	 * Expands the plan into cells for the given model folders. The order is
+	 * deterministic, so all machines of a sharded run derive the same list.
+	 */
+	public List<Cell> expand(List<File> modelFolders) {
+		List<File> selected = modelFolders.stream()
+			.filter(f -> models.contains(ALL_MODELS) || models.contains(f.getName()))
+			.sorted(Comparator.comparing(File::getName))
+			.collect(Collectors.toList());
+		List<Cell> cells = new ArrayList<>();
+		for (File model : selected) {
+			for (Variant variant : variants.values()) {
+				for (SolverContextFactory.Solvers backend : backends) {
+					for (Long timeout : timeouts) {
+						cells.add(new Cell(cells.size(), model, variant, backend, timeout, iterations));
+					}
+				}
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * Selects the disjoint slice of cells of one machine.
+	 *
+	 * @param shard index of the shard starting at 1
+	 * @param count number of shards
+	 */
+	public static List<Cell> shard(List<Cell> cells, int shard, int count) {
+		if (count <= 0 || shard <= 0 || shard > count) {
+			throw new IllegalArgumentException("Invalid shard " + shard + "/" + count);
+		}
+		return cells.stream().filter(c -> c.getIndex() % count == shard - 1).collect(Collectors.toList());
+	}
+
+	public static final class Variant {
+
+		private final String name;
+		private final boolean useAttributes;
+		private final boolean generateCount;
+		private final boolean constraints;
+
+		public Variant(String name, boolean useAttributes, boolean generateCount, boolean constraints) {
+			this.name = name;
+			this.useAttributes = useAttributes;
+			this.generateCount = generateCount;
+			this.constraints = constraints;
+		}
+
+		static Variant parse(String name, String options) throws IOException {
+			boolean attributes = false, count = false, constraints = false;
+			for (String option : options.trim().split("\\s+")) {
+				switch (option) {
+				case "":
+					break;
+				case "attributes":
+					attributes = true;
+					break;
+				case "count":
+					count = true;
+					break;
+				case "constraints":
+					constraints = true;
+					break;
+				default:
+					throw new IOException("Unknown option " + option + " of variant " + name);
+				}
+			}
+			return new Variant(name, attributes, count, constraints);
+		}
+
+		public Model load(File folder) {
+			Model model = Model.load(folder, useAttributes, generateCount);
+			return constraints ? model.appendConstraints() : model;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean hasConstraints() {
+			return constraints;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	public static final class Cell {
+
+		private final int index;
+		private final File model;
+		private final Variant variant;
+		private final SolverContextFactory.Solvers backend;
+		private final long timeout;
+		private final int iterations;
+
+		Cell(int index, File model, Variant variant, SolverContextFactory.Solvers backend, long timeout,
+			int iterations) {
+			this.index = index;
+			this.model = model;
+			this.variant = variant;
+			this.backend = backend;
+			this.timeout = timeout;
+			this.iterations = iterations;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public File getModel() {
+			return model;
+		}
+
+		public Variant getVariant() {
+			return variant;
+		}
+
+		public SolverContextFactory.Solvers getBackend() {
+			return backend;
+		}
+
+		public long getTimeout() {
+			return timeout;
+		}
+
+		public int getIterations() {
+			return iterations;
+		}
+
+		@Override
+		public String toString() {
+			return model.getName() + "/" + variant + "/" + backend + "/" + timeout + "s";
+		}
+	}
+}
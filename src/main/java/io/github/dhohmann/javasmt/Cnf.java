@@ -0,0 +1,157 @@
+package io.github.dhohmann.javasmt;
+
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.FunctionDeclarationKind;
+import org.sosy_lab.java_smt.api.Tactic;
+import org.sosy_lab.java_smt.api.visitors.DefaultFormulaVisitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Clause representation of a purely Boolean formula. Variables are numbered
+ * from 1 as in DIMACS, literals are signed variable indices.
+ */
+public class Cnf {
+
+	private final List<String> variables = new ArrayList<>();
+	private final Map<String, Integer> indices = new HashMap<>();
+	private final List<int[]> clauses = new ArrayList<>();
+
+	/**
+	 * Converts a formula of the given session into clauses using the Tseitin
+	 * transformation of the solver. Auxiliary variables introduced by the
+	 * transformation become regular variables of the result.
+	 *
+	 * @throws IllegalArgumentException if the formula contains non-Boolean atoms,
+	 *                                  e.g. attributes
+	 */
+	public static Cnf of(SolverSession session, BooleanFormula formula) throws InterruptedException {
+		FormulaManager formulaManager = session.getFormulaManager();
+		BooleanFormulaManager booleanManager = session.getBooleanFormulaManager();
+		BooleanFormula transformed = formulaManager.applyTactic(formula, Tactic.TSEITIN_CNF);
+
+		Cnf cnf = new Cnf();
+		LiteralVisitor visitor = cnf.new LiteralVisitor(formulaManager);
+		for (BooleanFormula clause : booleanManager.toConjunctionArgs(transformed, true)) {
+			Set<Integer> literals = new LinkedHashSet<>();
+			boolean satisfied = false;
+			for (BooleanFormula literal : booleanManager.toDisjunctionArgs(clause, true)) {
+				int value = formulaManager.visit(literal, visitor);
+				if (value == LiteralVisitor.TRUE) {
+					satisfied = true;
+					break;
+				} else if (value != LiteralVisitor.FALSE) {
+					literals.add(value);
+				}
+			}
+			if (!satisfied) {
+				cnf.addClause(literals.stream().mapToInt(Integer::intValue).toArray());
+			}
+		}
+		return cnf;
+	}
+
+	public int getVariable(String name) {
+		return indices.computeIfAbsent(name, n -> {
+			variables.add(n);
+			return variables.size();
+		});
+	}
+
+	public String getName(int variable) {
+		return variables.get(Math.abs(variable) - 1);
+	}
+
+	public Integer getIndex(String name) {
+		return indices.get(name);
+	}
+
+	public void addClause(int... literals) {
+		clauses.add(literals);
+	}
+
+	public List<String> getVariables() {
+		return Collections.unmodifiableList(variables);
+	}
+
+	public List<int[]> getClauses() {
+		return Collections.unmodifiableList(clauses);
+	}
+
+	/**
+	 * Builds the conjunction of all clauses in the given solver context.
+	 */
+	public BooleanFormula toFormula(BooleanFormulaManager booleanManager) {
+		List<BooleanFormula> variableFormulas = new ArrayList<>(variables.size());
+		for (String name : variables) {
+			variableFormulas.add(booleanManager.makeVariable(name));
+		}
+		List<BooleanFormula> clauseFormulas = new ArrayList<>(clauses.size());
+		for (int[] clause : clauses) {
+			List<BooleanFormula> literals = new ArrayList<>(clause.length);
+			for (int literal : clause) {
+				BooleanFormula variable = variableFormulas.get(Math.abs(literal) - 1);
+				literals.add(literal > 0 ? variable : booleanManager.not(variable));
+			}
+			clauseFormulas.add(booleanManager.or(literals));
+		}
+		return booleanManager.and(clauseFormulas);
+	}
+
+	private class LiteralVisitor extends DefaultFormulaVisitor<Integer> {
+
+		static final int TRUE = Integer.MAX_VALUE;
+		static final int FALSE = 0;
+
+		private final FormulaManager formulaManager;
+
+		LiteralVisitor(FormulaManager formulaManager) {
+			this.formulaManager = formulaManager;
+		}
+
+		@Override
+		protected Integer visitDefault(Formula f) {
+			throw new IllegalArgumentException("Not a Boolean literal: " + f);
+		}
+
+		@Override
+		public Integer visitFreeVariable(Formula f, String name) {
+			if (!(f instanceof BooleanFormula)) {
+				return visitDefault(f);
+			}
+			return getVariable(name);
+		}
+
+		@Override
+		public Integer visitConstant(Formula f, Object value) {
+			if (value instanceof Boolean) {
+				return (Boolean) value ? TRUE : FALSE;
+			}
+			return visitDefault(f);
+		}
+
+		@Override
+		public Integer visitFunction(Formula f, List<Formula> args, FunctionDeclaration<?> declaration) {
+			if (declaration.getKind() != FunctionDeclarationKind.NOT || args.size() != 1) {
+				return visitDefault(f);
+			}
+			int value = formulaManager.visit(args.get(0), this);
+			if (value == TRUE) {
+				return FALSE;
+			} else if (value == FALSE) {
+				return TRUE;
+			}
+			return -value;
+		}
+	}
+}
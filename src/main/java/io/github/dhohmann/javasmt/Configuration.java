@@ -0,0 +1,54 @@
+package io.github.dhohmann.javasmt;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Assignment of a set of features, e.g. a valid configuration of a model
+ * projected onto some of its features.
+ */
+public class Configuration {
+
+	private final Map<String, Boolean> selection = new LinkedHashMap<>();
+
+	public void set(String feature, boolean selected) {
+		selection.put(feature, selected);
+	}
+
+	public boolean isSelected(String feature) {
+		return Boolean.TRUE.equals(selection.get(feature));
+	}
+
+	public Map<String, Boolean> getSelection() {
+		return Collections.unmodifiableMap(selection);
+	}
+
+	/**
+	 * @return the selected features in the order of the projection
+	 */
+	public List<String> getSelectedFeatures() {
+		return selection.entrySet().stream().filter(Map.Entry::getValue).map(Map.Entry::getKey).collect(Collectors
+			.toList());
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof Configuration && selection.equals(((Configuration) o).selection);
+	}
+
+	@Override
+	public int hashCode() {
+		return selection.hashCode();
+	}
+
+	/**
+	 * @return the selected features separated by semicolons
+	 */
+	@Override
+	public String toString() {
+		return String.join(ResultFile.SEPARATOR, getSelectedFeatures());
+	}
+}
@@ -0,0 +1,153 @@
+package io.github.dhohmann.javasmt;
+
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.spldev.formula.expression.Formula;
+import org.spldev.formula.expression.compound.And;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily enumerates the valid configurations of a model. A configuration is
+ * only computed when the consumer asks for it, so the consumer controls the
+ * pace. Found configurations are excluded by blocking clauses on a single
+ * prover, i.e. the solver keeps its learned state between solutions and no
+ * configuration is kept on the Java side.
+ */
+public class ConfigurationEnumerator implements Iterator<Configuration>, AutoCloseable {
+
+	private final SolverSession session;
+	private final ProverEnvironment prover;
+	private final Map<String, BooleanFormula> projection = new LinkedHashMap<>();
+
+	private Configuration next;
+	private boolean exhausted = false;
+	private long count = 0;
+
+	/**
+	 * @param model    the model to enumerate
+	 * @param filter   additional constraints, e.g. a price limit, may be
+	 *                 {@code null}
+	 * @param features features to project onto, all features if {@code null}
+	 * @throws IllegalArgumentException if a feature is not part of the model
+	 */
+	public ConfigurationEnumerator(Model model, Formula filter, List<String> features,
+		SolverContextFactory.Solvers backend) {
+		List<String> projected = model.getFeatureNames(features);
+		Formula formula = filter == null ? model.getFormula() : new And(model.getFormula(), filter);
+		session = SolverSession.fromFormula(formula, backend);
+		BooleanFormulaManager booleanManager = session.getBooleanFormulaManager();
+		for (String feature : projected) {
+			projection.put(feature, booleanManager.makeVariable(feature));
+		}
+		try {
+			prover = session.newProver(SolverContext.ProverOptions.GENERATE_MODELS);
+		} catch (InterruptedException e) {
+			session.close();
+			throw new IllegalStateException("Interrupted while creating prover", e);
+		}
+	}
+
+	/**
+	 * @throws IllegalStateException if the solver fails or the enumeration is
+	 *                               interrupted
+	 */
+	@Override
+	public boolean hasNext() {
+		if (next == null && !exhausted) {
+			next = computeNext();
+			exhausted = next == null;
+		}
+		return next != null;
+	}
+
+	@Override
+	public Configuration next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Configuration configuration = next;
+		next = null;
+		count++;
+		return configuration;
+	}
+
+	private Configuration computeNext() {
+		try {
+			if (prover.isUnsat()) {
+				return null;
+			}
+			Configuration configuration = new Configuration();
+			List<BooleanFormula> blocking = new ArrayList<>(projection.size());
+			BooleanFormulaManager booleanManager = session.getBooleanFormulaManager();
+			try (org.sosy_lab.java_smt.api.Model model = prover.getModel()) {
+				for (Map.Entry<String, BooleanFormula> feature : projection.entrySet()) {
+					// unassigned features are irrelevant, the other value is found later
+					boolean selected = Boolean.TRUE.equals(model.evaluate(feature.getValue()));
+					configuration.set(feature.getKey(), selected);
+					blocking.add(selected ? booleanManager.not(feature.getValue()) : feature.getValue());
+				}
+			}
+			prover.addConstraint(booleanManager.or(blocking));
+			return configuration;
+		} catch (SolverException e) {
+			throw new IllegalStateException("Solver failed during enumeration", e);
+		} catch (InterruptedException e) {
+			// returning null would look like the end of the solution space
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted during enumeration", e);
+		}
+	}
+
+	/**
+	 * @return the number of configurations returned so far
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	public Stream<Configuration> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.DISTINCT
+			| Spliterator.NONNULL), false).onClose(this::close);
+	}
+
+	/**
+	 * Writes configurations as they are found, one per line.
+	 *
+	 * @param limit maximal number of configurations, {@code 0} for all
+	 * @return the number of written configurations
+	 */
+	public long write(Writer writer, long limit) throws IOException {
+		BufferedWriter buffered = new BufferedWriter(writer);
+		long written = 0;
+		while ((limit <= 0 || written < limit) && hasNext()) {
+			buffered.write(next().toString());
+			buffered.newLine();
+			written++;
+		}
+		buffered.flush();
+		return written;
+	}
+
+	@Override
+	public void close() {
+		prover.close();
+		session.close();
+	}
+}
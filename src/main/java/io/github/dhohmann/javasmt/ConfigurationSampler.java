@@ -0,0 +1,426 @@
+package io.github.dhohmann.javasmt;
+
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.spldev.formula.expression.Formula;
+import org.spldev.formula.expression.compound.And;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.dhohmann.javasmt.Prototype.LOGGER;
+
+/**
+ * Computes representative samples of valid configurations for models that are
+ * too large to enumerate or count. Two modes are supported:
+ * <ul>
+ * <li>near-uniform random sampling by hashing: random XOR constraints split the
+ * solution space into cells small enough to enumerate, a position is drawn
+ * uniformly up to the maximal cell size and the configuration at this position
+ * is returned, cells smaller than the position are rejected,</li>
+ * <li>t-wise sampling: a greedy algorithm adds each valid combination of t
+ * feature literals to the first partial configuration it fits into.</li>
+ * </ul>
+ * Each thread uses its own solver context and reuses one prover for all of its
+ * samples.
+ */
+public class ConfigurationSampler implements AutoCloseable {
+
+	/**
+	 * Maximal number of solutions of a cell for uniform sampling.
+	 */
+	public static final int PIVOT = 64;
+
+	private final List<String> features;
+	private final List<Worker> workers = new ArrayList<>();
+	private final ExecutorService executor;
+
+	private long time;
+	private int samples;
+	private double coverage = -1;
+
+	/**
+	 * @param filter   additional constraints, e.g. on attributes, may be
+	 *                 {@code null}
+	 * @param features features to sample, all features if {@code null}
+	 * @param threads  number of threads, each with its own solver
+	 * @throws IllegalArgumentException if a feature is not part of the model
+	 */
+	public ConfigurationSampler(Model model, Formula filter, List<String> features,
+		SolverContextFactory.Solvers backend, int threads) {
+		this.features = model.getFeatureNames(features);
+		Formula formula = filter == null ? model.getFormula() : new And(model.getFormula(), filter);
+		executor = Executors.newFixedThreadPool(threads);
+		List<Future<Worker>> creation = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			creation.add(executor.submit(() -> new Worker(formula, backend)));
+		}
+		for (Future<Worker> worker : creation) {
+			workers.add(get(worker));
+		}
+	}
+
+	/**
+	 * Draws configurations near-uniformly at random, possibly with duplicates.
+	 */
+	public List<Configuration> sampleUniform(int count, long seed) {
+		long start = System.currentTimeMillis();
+		AtomicInteger remaining = new AtomicInteger(count);
+		List<Configuration> sample = Collections.synchronizedList(new ArrayList<>(count));
+		List<Future<Void>> tasks = new ArrayList<>();
+		for (int i = 0; i < workers.size(); i++) {
+			Worker worker = workers.get(i);
+			Random random = new Random(seed + i);
+			tasks.add(executor.submit(() -> {
+				while (remaining.getAndDecrement() > 0) {
+					sample.add(worker.sampleUniform(random));
+				}
+				return null;
+			}));
+		}
+		tasks.forEach(ConfigurationSampler::get);
+		finish(start, sample.size());
+		return new ArrayList<>(sample);
+	}
+
+	/**
+	 * Creates a sample covering all valid combinations of t feature literals.
+	 *
+	 * @param limit maximal number of configurations, {@code 0} for no limit
+	 */
+	public List<Configuration> sampleTWise(int t, int limit) {
+		if (t < 1 || t > features.size()) {
+			throw new IllegalArgumentException("Cannot sample " + t + "-wise over " + features.size() + " features");
+		}
+		long start = System.currentTimeMillis();
+		Worker main = workers.get(0);
+
+		// literals that cannot be part of any configuration (core and dead features)
+		boolean[] invalid = new boolean[2 * features.size()];
+		List<Future<Void>> checks = new ArrayList<>();
+		for (int w = 0; w < workers.size(); w++) {
+			Worker worker = workers.get(w);
+			int offset = w;
+			checks.add(executor.submit(() -> {
+				for (int i = offset; i < invalid.length; i += workers.size()) {
+					invalid[i] = !worker.isSatisfiable(new int[] { i % 2 == 0 ? i / 2 + 1 : -(i / 2 + 1) });
+				}
+				return null;
+			}));
+		}
+		checks.forEach(ConfigurationSampler::get);
+
+		List<int[]> partials = new ArrayList<>();
+		long valid = 0, covered = 0;
+		int[] combination = new int[t];
+		for (int i = 0; i < t; i++) {
+			combination[i] = i;
+		}
+		int[] interaction = new int[t];
+		do {
+			for (int signs = 0; signs < 1 << t; signs++) {
+				boolean skip = false;
+				for (int i = 0; i < t; i++) {
+					boolean positive = (signs & 1 << i) == 0;
+					interaction[i] = positive ? combination[i] + 1 : -(combination[i] + 1);
+					skip |= invalid[2 * combination[i] + (positive ? 0 : 1)];
+				}
+				if (skip) {
+					continue;
+				}
+				int status = cover(main, partials, interaction, limit);
+				if (status >= 0) {
+					valid++;
+					covered += status;
+				}
+			}
+		} while (nextCombination(combination, features.size()));
+
+		// one task per worker, a prover must not be used by two threads at once
+		Configuration[] completed = new Configuration[partials.size()];
+		List<Future<Void>> completion = new ArrayList<>();
+		for (int w = 0; w < workers.size(); w++) {
+			Worker worker = workers.get(w);
+			int offset = w;
+			completion.add(executor.submit(() -> {
+				for (int i = offset; i < completed.length; i += workers.size()) {
+					completed[i] = worker.complete(partials.get(i));
+				}
+				return null;
+			}));
+		}
+		completion.forEach(ConfigurationSampler::get);
+		List<Configuration> sample = new ArrayList<>(Arrays.asList(completed));
+		coverage = valid == 0 ? 1 : covered / (double) valid;
+		finish(start, sample.size());
+		return sample;
+	}
+
+	/**
+	 * Adds an interaction to the first compatible partial configuration.
+	 *
+	 * @return {@code 1} if the interaction is covered, {@code 0} if it is valid
+	 *         but not covered due to the limit, {@code -1} if it is invalid
+	 */
+	private int cover(Worker worker, List<int[]> partials, int[] interaction, int limit) {
+		for (int[] partial : partials) {
+			boolean contained = true, compatible = true;
+			for (int literal : interaction) {
+				int value = partial[Math.abs(literal) - 1];
+				contained &= value == literal;
+				compatible &= value == 0 || value == literal;
+			}
+			if (contained) {
+				return 1;
+			}
+			if (compatible && worker.isSatisfiable(merge(partial, interaction))) {
+				for (int literal : interaction) {
+					partial[Math.abs(literal) - 1] = literal;
+				}
+				return 1;
+			}
+		}
+		if (!worker.isSatisfiable(interaction)) {
+			return -1;
+		}
+		if (limit > 0 && partials.size() >= limit) {
+			return 0;
+		}
+		int[] partial = new int[features.size()];
+		for (int literal : interaction) {
+			partial[Math.abs(literal) - 1] = literal;
+		}
+		partials.add(partial);
+		return 1;
+	}
+
+	private static int[] merge(int[] partial, int[] interaction) {
+		int[] literals = new int[partial.length + interaction.length];
+		int size = 0;
+		for (int value : partial) {
+			if (value != 0) {
+				literals[size++] = value;
+			}
+		}
+		for (int literal : interaction) {
+			literals[size++] = literal;
+		}
+		return Arrays.copyOf(literals, size);
+	}
+
+	private static boolean nextCombination(int[] combination, int n) {
+		int k = combination.length;
+		int i = k - 1;
+		while (i >= 0 && combination[i] == n - k + i) {
+			i--;
+		}
+		if (i < 0) {
+			return false;
+		}
+		combination[i]++;
+		for (int j = i + 1; j < k; j++) {
+			combination[j] = combination[j - 1] + 1;
+		}
+		return true;
+	}
+
+	private void finish(long start, int samples) {
+		this.time = System.currentTimeMillis() - start;
+		this.samples = samples;
+		LOGGER.info("Sampled " + samples + " configurations in " + time + " ms (" + String.format("%.2f",
+			getSamplesPerSecond()) + " samples/s" + (coverage >= 0 ? String.format(", coverage %.4f", coverage)
+				: "") + ")");
+	}
+
+	public double getSamplesPerSecond() {
+		return time == 0 ? samples * 1000.0 : samples * 1000.0 / time;
+	}
+
+	/**
+	 * @return the ratio of valid interactions covered by the last t-wise sample,
+	 *         {@code -1} if no t-wise sample was computed
+	 */
+	public double getCoverage() {
+		return coverage;
+	}
+
+	public long getTime() {
+		return time;
+	}
+
+	private static <T> T get(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted during sampling", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Sampling failed", e.getCause());
+		}
+	}
+
+	@Override
+	public void close() {
+		List<Future<Void>> closing = new ArrayList<>();
+		for (Worker worker : workers) {
+			closing.add(executor.submit((Callable<Void>) () -> {
+				worker.close();
+				return null;
+			}));
+		}
+		closing.forEach(ConfigurationSampler::get);
+		executor.shutdown();
+	}
+
+	/**
+	 * Solver of one thread.
+	 */
+	private final class Worker implements AutoCloseable {
+
+		private final SolverSession session;
+		private final ProverEnvironment prover;
+		private final BooleanFormulaManager booleanManager;
+		private final List<BooleanFormula> variables = new ArrayList<>();
+
+		private int xors = 0;
+
+		Worker(Formula formula, SolverContextFactory.Solvers backend) throws InterruptedException {
+			session = SolverSession.fromFormula(formula, backend);
+			booleanManager = session.getBooleanFormulaManager();
+			for (String feature : features) {
+				variables.add(booleanManager.makeVariable(feature));
+			}
+			prover = session.newProver(SolverContext.ProverOptions.GENERATE_MODELS);
+		}
+
+		/**
+		 * Draws a configuration from a random cell of at most {@link #PIVOT}
+		 * solutions, retrying with new XOR constraints if the drawn position is
+		 * beyond the size of the cell.
+		 */
+		Configuration sampleUniform(Random random) throws SolverException, InterruptedException {
+			if (prover.isUnsat()) {
+				throw new IllegalStateException("Model has no valid configuration");
+			}
+			// bounds of the number of XOR constraints found for this sample
+			int tooFew = -1, tooMany = Integer.MAX_VALUE;
+			while (true) {
+				List<Configuration> cell = new ArrayList<>();
+				prover.push();
+				try {
+					for (int i = 0; i < xors; i++) {
+						prover.addConstraint(randomXor(random));
+					}
+					while (cell.size() <= PIVOT && !prover.isUnsat()) {
+						cell.add(block());
+					}
+				} finally {
+					prover.pop();
+				}
+
+				if (cell.size() > PIVOT) {
+					tooFew = xors;
+					xors = tooMany == Integer.MAX_VALUE ? Math.max(1, 2 * xors) : (xors + tooMany + 1) / 2;
+				} else if (cell.isEmpty()) {
+					tooMany = xors;
+					xors = (xors + tooFew) / 2;
+				} else if (xors == 0) {
+					// the cell is the whole solution space
+					return cell.get(random.nextInt(cell.size()));
+				} else {
+					// every solution has the same chance 1 / (2^xors * PIVOT), small cells are
+					// rejected more often instead of over-sampling their solutions
+					int index = random.nextInt(PIVOT);
+					if (index < cell.size()) {
+						return cell.get(index);
+					}
+				}
+				if ((long) tooMany - tooFew <= 1) {
+					// hash bounds from different random constraints contradict each other
+					tooFew = -1;
+					tooMany = Integer.MAX_VALUE;
+				}
+			}
+		}
+
+		private BooleanFormula randomXor(Random random) {
+			BooleanFormula xor = random.nextBoolean() ? booleanManager.makeTrue() : booleanManager.makeFalse();
+			for (BooleanFormula variable : variables) {
+				if (random.nextBoolean()) {
+					xor = booleanManager.xor(xor, variable);
+				}
+			}
+			return xor;
+		}
+
+		/**
+		 * Reads the current solution and excludes it from further solutions.
+		 */
+		private Configuration block() throws SolverException, InterruptedException {
+			Configuration configuration = read();
+			List<BooleanFormula> blocking = new ArrayList<>(variables.size());
+			for (int i = 0; i < variables.size(); i++) {
+				BooleanFormula variable = variables.get(i);
+				blocking.add(configuration.isSelected(features.get(i)) ? booleanManager.not(variable) : variable);
+			}
+			prover.addConstraint(booleanManager.or(blocking));
+			return configuration;
+		}
+
+		private Configuration read() throws SolverException {
+			Configuration configuration = new Configuration();
+			try (org.sosy_lab.java_smt.api.Model model = prover.getModel()) {
+				for (int i = 0; i < variables.size(); i++) {
+					configuration.set(features.get(i), Boolean.TRUE.equals(model.evaluate(variables.get(i))));
+				}
+			}
+			return configuration;
+		}
+
+		boolean isSatisfiable(int[] literals) {
+			try {
+				return !prover.isUnsatWithAssumptions(assumptions(literals));
+			} catch (SolverException e) {
+				throw new IllegalStateException("Solver failed during sampling", e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted during sampling", e);
+			}
+		}
+
+		Configuration complete(int[] partial) throws SolverException, InterruptedException {
+			if (prover.isUnsatWithAssumptions(assumptions(merge(partial, new int[0])))) {
+				throw new IllegalStateException("Partial configuration became invalid");
+			}
+			return read();
+		}
+
+		private List<BooleanFormula> assumptions(int[] literals) {
+			List<BooleanFormula> assumptions = new ArrayList<>(literals.length);
+			for (int literal : literals) {
+				BooleanFormula variable = variables.get(Math.abs(literal) - 1);
+				assumptions.add(literal > 0 ? variable : booleanManager.not(variable));
+			}
+			return assumptions;
+		}
+
+		@Override
+		public void close() {
+			prover.close();
+			session.close();
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package io.github.dhohmann.javasmt;
+
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.spldev.formula.expression.Formula;
+import org.spldev.formula.expression.atomic.literal.VariableMap;
+import org.spldev.formula.expression.compound.And;
+import org.spldev.util.logging.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.dhohmann.javasmt.Prototype.LOGGER;
+
+/**
+ * Explains why a model has no valid configuration. Every clause of the feature
+ * model, every configuring constraint and every additional filter is guarded by
+ * a selector variable on one prover. The unsatisfiable core over the selectors
+ * is shrunk to a minimal one by removing one part at a time, each removal
+ * replacing the core by the smaller core of the remaining check.
+ */
+public class ConflictExplainer implements AutoCloseable {
+
+	public static final List<String> COLUMNS = Collections.unmodifiableList(Arrays.asList("core",
+		"extraction", "minimization"));
+
+	private static final String SELECTOR_PREFIX = "__explain_";
+
+	private final String name;
+	private final SolverSession session;
+	private final VariableMap variables;
+	private final Map<BooleanFormula, String> labels = new LinkedHashMap<>();
+
+	/**
+	 * @param model a model, its configuring constraints are added rule by rule if
+	 *              they were appended
+	 */
+	public ConflictExplainer(Model model, SolverContextFactory.Solvers backend) throws IOException {
+		this.name = model.getName();
+		this.session = new SolverSession(backend);
+		this.variables = model.getVariableMap();
+		Formula featureModel = model.getFeatureModelFormula();
+		List<? extends Formula> clauses = featureModel instanceof And ? featureModel.getChildren()
+			: Collections.singletonList(featureModel);
+		for (int i = 0; i < clauses.size(); i++) {
+			add("feature model clause #" + (i + 1), clauses.get(i));
+		}
+		File constraints = new File(model.getFolder(), "constraints.xml");
+		if (model.containsConstraints() && constraints.exists()) {
+			addRules(model, constraints);
+		}
+	}
+
+	/**
+	 * Adds each rule of a constraints file as its own part.
+	 */
+	public void addRules(Model model, File constraints) throws IOException {
+		try (ConstraintBatchReader reader = ConstraintBatchReader.open(constraints)) {
+			InputStream rule;
+			while ((rule = reader.nextBatch(1)) != null) {
+				Formula formula = model.loadConstraints(rule).orElse(Logger::logProblems);
+				if (formula == null) {
+					throw new IOException("Could not read rule " + reader.getRules() + " of " + constraints);
+				}
+				add("rule #" + reader.getRules(), formula);
+			}
+		}
+	}
+
+	/**
+	 * Adds a part, e.g. a partial configuration, that may be part of the
+	 * explanation. The label is extended by the names of its variables.
+	 */
+	public void add(String label, Formula formula) {
+		BooleanFormulaManager booleanManager = session.getBooleanFormulaManager();
+		BooleanFormula selector = booleanManager.makeVariable(SELECTOR_PREFIX + labels.size());
+		session.addConstraint(booleanManager.implication(selector, session.translate(formula, variables)));
+		Set<String> names = new LinkedHashSet<>(VariableMap.fromExpression(formula).getNames());
+		labels.put(selector, label + " " + names);
+	}
+
+	/**
+	 * @param timeout limit for extraction and minimization together
+	 */
+	public Explanation explain(long timeout, TimeUnit unit) throws InterruptedException {
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		ScheduledFuture<?> guard = scheduler.schedule(() -> session.shutdownManager.requestShutdown("Timeout"),
+			timeout, unit);
+		long extraction = -1;
+		long start = System.nanoTime();
+		try (ProverEnvironment prover = session.newProver(
+			SolverContext.ProverOptions.GENERATE_UNSAT_CORE_OVER_ASSUMPTIONS)) {
+			Optional<List<BooleanFormula>> core = prover.unsatCoreOverAssumptions(labels.keySet());
+			extraction = System.nanoTime() - start;
+			if (!core.isPresent()) {
+				return new Explanation(null, 0, extraction, 0);
+			}
+			int extracted = core.get().size();
+
+			start = System.nanoTime();
+			List<BooleanFormula> minimal = new ArrayList<>(core.get());
+			for (BooleanFormula candidate : new ArrayList<>(minimal)) {
+				if (!minimal.contains(candidate)) {
+					continue;
+				}
+				List<BooleanFormula> remaining = new ArrayList<>(minimal);
+				remaining.remove(candidate);
+				Optional<List<BooleanFormula>> smaller = prover.unsatCoreOverAssumptions(remaining);
+				if (smaller.isPresent()) {
+					minimal = new ArrayList<>(smaller.get());
+				}
+			}
+			long minimization = System.nanoTime() - start;
+
+			List<String> reasons = new ArrayList<>(minimal.size());
+			for (BooleanFormula selector : labels.keySet()) {
+				if (minimal.contains(selector)) {
+					reasons.add(labels.get(selector));
+				}
+			}
+			return new Explanation(reasons, extracted, extraction, minimization);
+		} catch (SolverException | InterruptedException e) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			LOGGER.info("[" + name + "] Explanation timeout: " + e.getMessage());
+			return Explanation.timeout(extraction);
+		} finally {
+			guard.cancel(false);
+			scheduler.shutdownNow();
+		}
+	}
+
+	@Override
+	public void close() {
+		session.close();
+	}
+
+	public static final class Explanation {
+
+		private final List<String> reasons;
+		private final int extracted;
+		private final long extraction;
+		private final long minimization;
+
+		Explanation(List<String> reasons, int extracted, long extraction, long minimization) {
+			this.reasons = reasons == null ? null : Collections.unmodifiableList(reasons);
+			this.extracted = extracted;
+			this.extraction = extraction;
+			this.minimization = minimization;
+		}
+
+		static Explanation timeout(long extraction) {
+			return new Explanation(null, -1, extraction, -1);
+		}
+
+		/**
+		 * @return {@code true} if the model has a valid configuration, i.e. there
+		 *         is nothing to explain
+		 */
+		public boolean isSatisfiable() {
+			return reasons == null && extracted == 0;
+		}
+
+		public boolean isTimeout() {
+			return extracted < 0;
+		}
+
+		/**
+		 * @return the labels of a minimal set of parts without a valid
+		 *         configuration, {@code null} if satisfiable or timed out
+		 */
+		public List<String> getReasons() {
+			return reasons;
+		}
+
+		/**
+		 * @return the size of the core before minimization
+		 */
+		public int getExtractedSize() {
+			return extracted;
+		}
+
+		/**
+		 * @return the time of the core extraction in nanoseconds, {@code -1} on
+		 *         timeout
+		 */
+		public long getExtractionTime() {
+			return extraction;
+		}
+
+		/**
+		 * @return the time of the minimization in nanoseconds, {@code -1} on timeout
+		 */
+		public long getMinimizationTime() {
+			return minimization;
+		}
+
+		/**
+		 * @return the values of {@link ConflictExplainer#COLUMNS}, times in
+		 *         milliseconds
+		 */
+		public List<String> toColumns() {
+			List<String> columns = new ArrayList<>(COLUMNS.size());
+			columns.add(Integer.toString(reasons == null ? extracted : reasons.size()));
+			columns.add(Long.toString(extraction < 0 ? -1 : extraction / 1_000_000));
+			columns.add(Long.toString(minimization < 0 ? -1 : minimization / 1_000_000));
+			return columns;
+		}
+	}
+}
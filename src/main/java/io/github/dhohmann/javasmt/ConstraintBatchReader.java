@@ -0,0 +1,136 @@
+package io.github.dhohmann.javasmt;
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams the rules of a {@code constraints.xml} in batches. Each batch is a
+ * small constraints document that can be read by
+ * {@link Model#loadConstraints(InputStream)}, so only one batch is held in
+ * memory at a time.
+ */
+public class ConstraintBatchReader implements Closeable {
+
+	private static final String RULE = "rule";
+
+	private final InputStream stream;
+	private final XMLEventReader reader;
+	private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+	private int rules = 0;
+	private int batchSize = 0;
+
+	public ConstraintBatchReader(InputStream stream) throws IOException {
+		this.stream = stream;
+		try {
+			reader = XMLInputFactory.newInstance().createXMLEventReader(stream);
+		} catch (XMLStreamException e) {
+			throw new IOException("Could not read constraints", e);
+		}
+	}
+
+	public static ConstraintBatchReader open(File file) throws IOException {
+		return new ConstraintBatchReader(new FileInputStream(file));
+	}
+
+	/**
+	 * Counts the rules of a constraints file without building them.
+	 */
+	public static int count(File file) throws IOException {
+		try (ConstraintBatchReader reader = open(file)) {
+			int count = 0;
+			while (reader.reader.hasNext()) {
+				XMLEvent event = reader.reader.nextEvent();
+				if (event.isStartElement() && RULE.equals(event.asStartElement().getName().getLocalPart())) {
+					count++;
+				}
+			}
+			return count;
+		} catch (XMLStreamException e) {
+			throw new IOException("Could not count rules of " + file, e);
+		}
+	}
+
+	/**
+	 * @param size maximal number of rules in the batch
+	 * @return the next batch as constraints document or {@code null} if all
+	 *         rules were read
+	 */
+	public InputStream nextBatch(int size) throws IOException {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Batch size cannot be 0 or negative");
+		}
+		try {
+			StringWriter document = new StringWriter().append("<constraints>");
+			XMLEventWriter writer = outputFactory.createXMLEventWriter(document);
+			batchSize = 0;
+			while (batchSize < size && reader.hasNext()) {
+				XMLEvent event = reader.nextEvent();
+				if (event.isStartElement() && RULE.equals(event.asStartElement().getName().getLocalPart())) {
+					copyElement(event, writer);
+					batchSize++;
+				}
+			}
+			writer.close();
+			if (batchSize == 0) {
+				return null;
+			}
+			rules += batchSize;
+			document.append("</constraints>");
+			return new ByteArrayInputStream(document.toString().getBytes(StandardCharsets.UTF_8));
+		} catch (XMLStreamException e) {
+			throw new IOException("Could not read rule " + (rules + batchSize + 1), e);
+		}
+	}
+
+	private void copyElement(XMLEvent start, XMLEventWriter writer) throws XMLStreamException {
+		writer.add(start);
+		int depth = 1;
+		while (depth > 0) {
+			XMLEvent event = reader.nextEvent();
+			if (event.isStartElement()) {
+				depth++;
+			} else if (event.isEndElement()) {
+				depth--;
+			}
+			writer.add(event);
+		}
+	}
+
+	/**
+	 * @return the number of rules in the last batch
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * @return the number of rules read so far
+	 */
+	public int getRules() {
+		return rules;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			stream.close();
+		}
+	}
+}
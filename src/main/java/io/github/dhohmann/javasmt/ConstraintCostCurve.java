@@ -0,0 +1,166 @@
+package io.github.dhohmann.javasmt;
+
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.spldev.formula.expression.Formula;
+import org.spldev.formula.expression.atomic.literal.VariableMap;
+import org.spldev.formula.solver.SatSolver;
+import org.spldev.util.logging.Logger;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static io.github.dhohmann.javasmt.Prototype.LOGGER;
+
+/**
+ * Measures how the cost of a satisfiability check grows with the number of
+ * configuring constraints. The rules are streamed in batches and asserted on a
+ * single live prover on top of the model, after each batch the conversion time
+ * of the batch and the time of the check are written as one line. The counters
+ * of the prover accumulate over its lifetime, so the lines contain the
+ * difference to the previous batch, except for the peak memory.
+ */
+public class ConstraintCostCurve {
+
+	public static final List<String> HEADER;
+
+	static {
+		List<String> header = new ArrayList<>(Arrays.asList("model", "batch", "rules", "conversion",
+			"hasSolution", "result"));
+		header.addAll(SolverStatistics.COLUMNS);
+		HEADER = Collections.unmodifiableList(header);
+	}
+
+	private final Model model;
+	private final SolverContextFactory.Solvers backend;
+	private final long timeout;
+
+	private SolverStatistics previous = new SolverStatistics();
+
+	/**
+	 * @param model   the model without configuring constraints
+	 * @param timeout timeout of each check in {@link ModelTest#TIMEOUT_UNIT}
+	 */
+	public ConstraintCostCurve(Model model, SolverContextFactory.Solvers backend, long timeout) {
+		this.model = model;
+		this.backend = backend;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Writes the curve for the rules of the given file. The measurement stops at
+	 * the first check exceeding the timeout, as the solver context cannot be used
+	 * after it was shut down.
+	 *
+	 * @return the number of asserted rules
+	 */
+	public int measure(File constraints, int batchSize, Writer output) throws IOException {
+		BufferedWriter writer = new BufferedWriter(output);
+		writer.write(String.join(ResultFile.SEPARATOR, HEADER));
+		writer.newLine();
+		previous = new SolverStatistics();
+
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		try (SolverSession session = new SolverSession(backend);
+			ConstraintBatchReader reader = ConstraintBatchReader.open(constraints)) {
+			VariableMap variables = model.getVariableMap();
+			long start = System.nanoTime();
+			BooleanFormula base = session.translate(model.getFormula(), variables);
+			long conversion = System.nanoTime() - start;
+
+			try (ProverEnvironment prover = session.newProver()) {
+				prover.addConstraint(base);
+				int batch = 0;
+				boolean finished = check(session, prover, scheduler, batch, 0, conversion, writer);
+				InputStream rules;
+				while (finished && (rules = reader.nextBatch(batchSize)) != null) {
+					batch++;
+					start = System.nanoTime();
+					Formula formula = model.loadConstraints(rules).orElse(Logger::logProblems);
+					if (formula == null) {
+						throw new IOException("Could not read rules " + (reader.getRules() - reader.getBatchSize()
+							+ 1) + " to " + reader.getRules() + " of " + constraints);
+					}
+					BooleanFormula converted = session.translate(formula, variables);
+					conversion = System.nanoTime() - start;
+					prover.addConstraint(converted);
+					finished = check(session, prover, scheduler, batch, reader.getRules(), conversion, writer);
+				}
+				return reader.getRules();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while measuring " + model.getName(), e);
+		} finally {
+			scheduler.shutdownNow();
+			writer.flush();
+		}
+	}
+
+	/**
+	 * @return the increase of a counter since the previous batch or {@code -1} if
+	 *         the backend does not report it
+	 */
+	private String delta(SolverStatistics statistics, String column) {
+		try {
+			long current = Long.parseLong(statistics.get(column));
+			long before = Long.parseLong(previous.get(column));
+			return current < 0 ? "-1" : Long.toString(current - Math.max(before, 0));
+		} catch (NumberFormatException e) {
+			return statistics.get(column);
+		}
+	}
+
+	/**
+	 * @return {@code false} if the check was stopped by the timeout
+	 */
+	private boolean check(SolverSession session, ProverEnvironment prover, ScheduledExecutorService scheduler,
+		int batch, int rules, long conversion, BufferedWriter writer) throws IOException {
+		ScheduledFuture<?> guard = scheduler.schedule(() -> session.shutdownManager.requestShutdown("Timeout"),
+			timeout, ModelTest.TIMEOUT_UNIT);
+		SatSolver.SatResult result;
+		long start = System.nanoTime();
+		try {
+			result = prover.isUnsat() ? SatSolver.SatResult.FALSE : SatSolver.SatResult.TRUE;
+		} catch (SolverException | InterruptedException e) {
+			result = SatSolver.SatResult.TIMEOUT;
+		} finally {
+			guard.cancel(false);
+		}
+		long time = System.nanoTime() - start;
+
+		SolverStatistics statistics = new SolverStatistics();
+		if (result != SatSolver.SatResult.TIMEOUT) {
+			statistics.update(prover.getStatistics());
+		}
+		List<String> line = new ArrayList<>(HEADER.size());
+		line.add(model.getName() + model.getNameSuffix());
+		line.add(Integer.toString(batch));
+		line.add(Integer.toString(rules));
+		line.add(Long.toString(conversion / 1_000_000));
+		line.add(Long.toString(result == SatSolver.SatResult.TIMEOUT ? -1 : time / 1_000_000));
+		line.add(result.name());
+		for (String column : SolverStatistics.COLUMNS) {
+			line.add(SolverStatistics.MEMORY.equals(column) ? statistics.get(column) : delta(statistics, column));
+		}
+		previous = statistics;
+		writer.write(String.join(ResultFile.SEPARATOR, line));
+		writer.newLine();
+		writer.flush();
+		LOGGER.info("[" + model.getName() + "] " + rules + " rules: conversion " + conversion / 1_000_000
+			+ " ms, hasSolution " + time / 1_000_000 + " ms, " + result);
+		return result != SatSolver.SatResult.TIMEOUT;
+	}
+}
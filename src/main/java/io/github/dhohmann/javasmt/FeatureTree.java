@@ -0,0 +1,110 @@
+package io.github.dhohmann.javasmt;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parent-child structure of the features in the {@code struct} section of a
+ * {@code model.xml}. Attributes and constraints are ignored.
+ */
+public class FeatureTree {
+
+	private static final List<String> FEATURE_ELEMENTS = Arrays.asList("and", "or", "alt", "feature");
+
+	private final Map<String, List<String>> children = new HashMap<>();
+	private final Map<String, Integer> depths = new HashMap<>();
+	private String root;
+
+	public static FeatureTree load(File modelFolder) throws IOException {
+		Document document;
+		try {
+			document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new File(modelFolder,
+				"model.xml"));
+		} catch (ParserConfigurationException | SAXException e) {
+			throw new IOException("Could not read feature tree of " + modelFolder.getName(), e);
+		}
+		FeatureTree tree = new FeatureTree();
+		Node struct = document.getElementsByTagName("struct").item(0);
+		if (struct != null) {
+			for (Node child = struct.getFirstChild(); child != null; child = child.getNextSibling()) {
+				if (isFeature(child)) {
+					tree.root = tree.add((Element) child, 0);
+					break;
+				}
+			}
+		}
+		return tree;
+	}
+
+	private static boolean isFeature(Node node) {
+		return node.getNodeType() == Node.ELEMENT_NODE && FEATURE_ELEMENTS.contains(node.getNodeName());
+	}
+
+	private String add(Element element, int depth) {
+		String name = element.getAttribute("name");
+		List<String> names = new ArrayList<>();
+		depths.put(name, depth);
+		children.put(name, names);
+		for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (isFeature(child)) {
+				names.add(add((Element) child, depth + 1));
+			}
+		}
+		return name;
+	}
+
+	public String getRoot() {
+		return root;
+	}
+
+	public boolean contains(String feature) {
+		return depths.containsKey(feature);
+	}
+
+	public List<String> getChildren(String feature) {
+		return Collections.unmodifiableList(children.getOrDefault(feature, Collections.emptyList()));
+	}
+
+	/**
+	 * @return the distance to the root or {@code -1} if the feature is not part
+	 *         of the tree
+	 */
+	public int getDepth(String feature) {
+		return depths.getOrDefault(feature, -1);
+	}
+
+	/**
+	 * @return the given feature and all of its descendants in pre-order
+	 * @throws IllegalArgumentException if the feature is not part of the tree
+	 */
+	public Set<String> getSubtree(String feature) {
+		if (!contains(feature)) {
+			throw new IllegalArgumentException("Unknown feature " + feature);
+		}
+		Set<String> subtree = new LinkedHashSet<>();
+		collect(feature, subtree);
+		return subtree;
+	}
+
+	private void collect(String feature, Set<String> subtree) {
+		subtree.add(feature);
+		for (String child : children.get(feature)) {
+			collect(child, subtree);
+		}
+	}
+}
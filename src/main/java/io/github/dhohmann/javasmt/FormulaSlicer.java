@@ -0,0 +1,382 @@
+package io.github.dhohmann.javasmt;
+
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.spldev.formula.expression.Formula;
+import org.spldev.formula.expression.atomic.literal.LiteralPredicate;
+import org.spldev.formula.expression.atomic.literal.VariableMap;
+import org.spldev.formula.expression.compound.And;
+import org.spldev.formula.expression.compound.Or;
+import org.spldev.formula.expression.term.Variable;
+import org.spldev.formula.expression.term.bool.BoolVariable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Projects the formula of a Boolean model onto a subset of its features. All
+ * other variables, including the auxiliary variables of the clause
+ * transformation, are eliminated existentially by resolution, so the slice has
+ * exactly the configurations of the model restricted to the kept features.
+ * The next variable to eliminate is the one with the smallest growth of the
+ * clause set by its resolvents. Ties are broken by the feature tree, auxiliary
+ * variables first and deeper features before their ancestors, as leaves only
+ * occur in the clauses of their parent and of few cross-tree constraints.
+ * Slices are cached per feature set, slicers are shared per model variant and
+ * backend by {@link #of(Model, SolverContextFactory.Solvers)}, so the cache
+ * serves repeated queries within one process.
+ */
+public class FormulaSlicer {
+
+	private static final Map<String, FormulaSlicer> SLICERS = new HashMap<>();
+
+	private final Model model;
+	private final FeatureTree tree;
+	private final SolverContextFactory.Solvers backend;
+	private final VariableMap variableMap;
+	private final Map<Set<String>, Slice> cache = new HashMap<>();
+
+	private Cnf cnf;
+
+	/**
+	 * @param model a model without attributes and count, the clause
+	 *              transformation only supports Boolean variables. Appended
+	 *              configuring constraints have to be Boolean as well, rules
+	 *              over attributes such as the {@code sum} rule of webserver are
+	 *              rejected.
+	 */
+	public FormulaSlicer(Model model, FeatureTree tree, SolverContextFactory.Solvers backend) {
+		this.model = model;
+		this.tree = tree;
+		this.backend = backend;
+		this.variableMap = VariableMap.fromExpression(model.getFormula());
+	}
+
+	/**
+	 * @return the slicer of the variant of the model, created on first use
+	 */
+	public static synchronized FormulaSlicer of(Model model, SolverContextFactory.Solvers backend)
+		throws IOException {
+		String key = model.getFolder().getAbsolutePath() + model.getNameSuffix() + "/" + backend;
+		FormulaSlicer slicer = SLICERS.get(key);
+		if (slicer == null) {
+			slicer = new FormulaSlicer(model, FeatureTree.load(model.getFolder()), backend);
+			SLICERS.put(key, slicer);
+		}
+		return slicer;
+	}
+
+	/**
+	 * @return the slice onto the given feature and its descendants
+	 */
+	public Slice sliceSubtree(String root) throws InterruptedException {
+		return slice(tree.getSubtree(root));
+	}
+
+	/**
+	 * @throws IllegalArgumentException if a feature is not part of the model
+	 */
+	public synchronized Slice slice(Collection<String> features) throws InterruptedException {
+		Set<String> key = Collections.unmodifiableSet(new TreeSet<>(features));
+		Slice slice = cache.get(key);
+		if (slice == null) {
+			long start = System.nanoTime();
+			Cnf sliced = eliminate(getCnf(), features);
+			slice = new Slice(features, sliced, toFormula(sliced), System.nanoTime() - start);
+			cache.put(key, slice);
+		}
+		return slice;
+	}
+
+	/**
+	 * @return the clauses of the whole model, computed once
+	 */
+	public synchronized Cnf getCnf() throws InterruptedException {
+		if (cnf == null) {
+			try (SolverSession session = SolverSession.fromFormula(model.getFormula(), backend)) {
+				cnf = Cnf.of(session, session.getFormula());
+			}
+		}
+		return cnf;
+	}
+
+	private Cnf eliminate(Cnf full, Collection<String> features) {
+		Set<Integer> kept = new HashSet<>();
+		for (String feature : features) {
+			Integer index = full.getIndex(feature);
+			if (index != null) {
+				kept.add(index);
+			} else {
+				// unconstrained features may vanish during the transformation
+				getVariable(feature);
+			}
+		}
+
+		ClauseSet clauses = new ClauseSet();
+		for (int[] clause : full.getClauses()) {
+			clauses.add(clause);
+		}
+		Set<Integer> remaining = new HashSet<>();
+		for (int variable = 1; variable <= full.getVariables().size(); variable++) {
+			if (!kept.contains(variable)) {
+				remaining.add(variable);
+			}
+		}
+		while (!remaining.isEmpty() && !clauses.isUnsatisfiable()) {
+			int next = 0;
+			long nextCost = Long.MAX_VALUE;
+			int nextDepth = 0;
+			for (int variable : remaining) {
+				long positive = clauses.count(variable), negative = clauses.count(-variable);
+				long cost = positive * negative - positive - negative;
+				// auxiliary variables are not part of the tree and go first
+				int depth = tree.contains(full.getName(variable)) ? tree.getDepth(full.getName(variable))
+					: Integer.MAX_VALUE;
+				if (cost < nextCost || cost == nextCost && depth > nextDepth) {
+					next = variable;
+					nextCost = cost;
+					nextDepth = depth;
+				}
+			}
+			clauses.eliminate(next);
+			remaining.remove(next);
+		}
+
+		Cnf sliced = new Cnf();
+		for (String feature : features) {
+			sliced.getVariable(feature);
+		}
+		for (int[] clause : clauses.getClauses()) {
+			int[] literals = new int[clause.length];
+			for (int i = 0; i < clause.length; i++) {
+				int variable = sliced.getVariable(full.getName(clause[i]));
+				literals[i] = clause[i] > 0 ? variable : -variable;
+			}
+			sliced.addClause(literals);
+		}
+		return sliced;
+	}
+
+	private Formula toFormula(Cnf sliced) {
+		List<Formula> clauses = new ArrayList<>(sliced.getClauses().size());
+		for (int[] clause : sliced.getClauses()) {
+			List<Formula> literals = new ArrayList<>(clause.length);
+			for (int literal : clause) {
+				literals.add(new LiteralPredicate(getVariable(sliced.getName(literal)), literal > 0));
+			}
+			clauses.add(literals.size() == 1 ? literals.get(0) : new Or(literals));
+		}
+		return new And(clauses);
+	}
+
+	private BoolVariable getVariable(String name) {
+		Optional<Variable<?>> variable = variableMap.getVariable(name);
+		if (!variable.isPresent() || !(variable.get() instanceof BoolVariable)) {
+			throw new IllegalArgumentException("Unknown feature " + name);
+		}
+		return (BoolVariable) variable.get();
+	}
+
+	public static final class Slice {
+
+		private final List<String> features;
+		private final Cnf cnf;
+		private final Formula formula;
+		private final long time;
+
+		Slice(Collection<String> features, Cnf cnf, Formula formula, long time) {
+			this.features = Collections.unmodifiableList(new ArrayList<>(features));
+			this.cnf = cnf;
+			this.formula = formula;
+			this.time = time;
+		}
+
+		public List<String> getFeatures() {
+			return features;
+		}
+
+		public Cnf getCnf() {
+			return cnf;
+		}
+
+		/**
+		 * @return the slice over the variables of the model, an empty disjunction
+		 *         if the model is void
+		 */
+		public Formula getFormula() {
+			return formula;
+		}
+
+		/**
+		 * @return the time needed to compute the slice in nanoseconds
+		 */
+		public long getTime() {
+			return time;
+		}
+	}
+
+	/**
+	 * Clauses with occurrence lists, free of duplicates, tautologies and subsumed
+	 * clauses.
+	 */
+	private static final class ClauseSet {
+
+		private final Set<Clause> clauses = new LinkedHashSet<>();
+		private final Map<Integer, Set<Clause>> occurrences = new HashMap<>();
+		private boolean unsatisfiable = false;
+
+		void add(int[] literals) {
+			int[] sorted = Arrays.stream(literals).distinct().sorted().toArray();
+			for (int literal : sorted) {
+				if (Arrays.binarySearch(sorted, -literal) >= 0) {
+					return;
+				}
+			}
+			if (sorted.length == 0) {
+				unsatisfiable = true;
+				return;
+			}
+			Clause clause = new Clause(sorted);
+			if (clauses.contains(clause) || isSubsumed(clause)) {
+				return;
+			}
+			removeSubsumed(clause);
+			clauses.add(clause);
+			for (int literal : sorted) {
+				occurrences.computeIfAbsent(literal, l -> new LinkedHashSet<>()).add(clause);
+			}
+		}
+
+		/**
+		 * A subsuming clause contains at least one of the literals, but not
+		 * necessarily a particular one, so all occurrence lists are checked.
+		 */
+		private boolean isSubsumed(Clause clause) {
+			for (int literal : clause.literals) {
+				for (Clause candidate : occurrences.getOrDefault(literal, Collections.emptySet())) {
+					if (candidate.subsumes(clause)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Removes the clauses subsumed by a new clause. They contain all of its
+		 * literals, so the shortest occurrence list is sufficient.
+		 */
+		private void removeSubsumed(Clause clause) {
+			Set<Clause> candidates = null;
+			for (int literal : clause.literals) {
+				Set<Clause> occurrence = occurrences.getOrDefault(literal, Collections.emptySet());
+				if (candidates == null || occurrence.size() < candidates.size()) {
+					candidates = occurrence;
+				}
+			}
+			List<Clause> subsumed = new ArrayList<>();
+			for (Clause candidate : candidates) {
+				if (clause.subsumes(candidate)) {
+					subsumed.add(candidate);
+				}
+			}
+			subsumed.forEach(this::remove);
+		}
+
+		int count(int literal) {
+			return occurrences.getOrDefault(literal, Collections.emptySet()).size();
+		}
+
+		/**
+		 * Replaces all clauses containing the variable by their resolvents.
+		 */
+		void eliminate(int variable) {
+			List<Clause> positive = new ArrayList<>(occurrences.getOrDefault(variable, Collections.emptySet()));
+			List<Clause> negative = new ArrayList<>(occurrences.getOrDefault(-variable, Collections.emptySet()));
+			positive.forEach(this::remove);
+			negative.forEach(this::remove);
+			for (Clause p : positive) {
+				for (Clause n : negative) {
+					int[] resolvent = new int[p.literals.length + n.literals.length - 2];
+					int i = 0;
+					for (int literal : p.literals) {
+						if (literal != variable) {
+							resolvent[i++] = literal;
+						}
+					}
+					for (int literal : n.literals) {
+						if (literal != -variable) {
+							resolvent[i++] = literal;
+						}
+					}
+					add(resolvent);
+				}
+			}
+		}
+
+		private void remove(Clause clause) {
+			clauses.remove(clause);
+			for (int literal : clause.literals) {
+				occurrences.get(literal).remove(clause);
+			}
+		}
+
+		boolean isUnsatisfiable() {
+			return unsatisfiable;
+		}
+
+		List<int[]> getClauses() {
+			if (unsatisfiable) {
+				return Collections.singletonList(new int[0]);
+			}
+			List<int[]> result = new ArrayList<>(clauses.size());
+			for (Clause clause : clauses) {
+				result.add(clause.literals);
+			}
+			return result;
+		}
+	}
+
+	private static final class Clause {
+
+		private final int[] literals;
+		private final int hash;
+
+		Clause(int[] sortedLiterals) {
+			this.literals = sortedLiterals;
+			this.hash = Arrays.hashCode(sortedLiterals);
+		}
+
+		boolean subsumes(Clause other) {
+			if (literals.length > other.literals.length) {
+				return false;
+			}
+			for (int literal : literals) {
+				if (Arrays.binarySearch(other.literals, literal) < 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Clause && Arrays.equals(literals, ((Clause) o).literals);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
@@ -18,6 +18,7 @@ import org.spldev.util.tree.Trees;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
 
@@ -26,6 +27,7 @@ public class Model {
 	private final String name;
 	private final File folder;
 	private Result<Formula> model, constraints;
+	private int constraintRules = -1;
 
 	private boolean containsCustomAttributes = false;
 	private boolean containsConstraints = false;
@@ -82,9 +84,12 @@ public class Model {
 			if (stream == null) {
 				constraints = Result.empty(new Problem(new NullPointerException("No constraints present")));
 			} else {
-				ConfiguringConstraintsFormat constraintsFormat = new ConfiguringConstraintsFormat(model.orElse(
-					Logger::logProblems).getVariableMap());
-				constraints = FileHandler.load(stream, constraintsFormat);
+				constraints = loadConstraints(stream);
+				try {
+					constraintRules = ConstraintBatchReader.count(constraintsXML);
+				} catch (IOException e) {
+					constraintRules = -1;
+				}
 			}
 			containsConstraints = true;
 		} else {
@@ -93,6 +98,56 @@ public class Model {
 		return this;
 	}
 
+	/**
+	 * Reads configuring constraints referring to the variables of this model
+	 * without appending them, e.g. to filter configurations.
+	 */
+	public Result<Formula> loadConstraints(InputStream stream) {
+		ConfiguringConstraintsFormat constraintsFormat = new ConfiguringConstraintsFormat(getVariableMap());
+		return FileHandler.load(stream, constraintsFormat);
+	}
+
+	/**
+	 * @return the variables of the model without configuring constraints, which
+	 *         are shared by constraints read with {@link #loadConstraints}
+	 */
+	public VariableMap getVariableMap() {
+		return model.orElse(Logger::logProblems).getVariableMap();
+	}
+
+	/**
+	 * @return the names of all Boolean variables, i.e. the features
+	 */
+	public List<String> getFeatureNames() {
+		VariableMap variableMap = VariableMap.fromExpression(getFormula());
+		List<String> features = new ArrayList<>();
+		for (String name : variableMap.getNames()) {
+			Optional<Variable<?>> o = variableMap.getVariable(name);
+			if (o.isPresent() && o.get() instanceof BoolVariable) {
+				features.add(name);
+			}
+		}
+		return features;
+	}
+
+	/**
+	 * @param names feature names, e.g. given by the user, may be {@code null}
+	 * @return the given names or all features if {@code null}
+	 * @throws IllegalArgumentException if a name is not a feature of this model
+	 */
+	public List<String> getFeatureNames(List<String> names) {
+		List<String> features = getFeatureNames();
+		if (names == null) {
+			return features;
+		}
+		for (String name : names) {
+			if (!features.contains(name)) {
+				throw new IllegalArgumentException("Unknown feature " + name);
+			}
+		}
+		return names;
+	}
+
 	public Statistics getStatistics() {
 		Statistics statistics = new Statistics(containsCustomAttributes, containsConstraints, containsCount,
 			containsAttributes);
@@ -117,14 +172,48 @@ public class Model {
 		return statistics;
 	}
 
+	/**
+	 * @return the number of rules in the configuring constraints
+	 */
 	public int getConstraints() {
 		if (constraints == null || !constraints.isPresent()) {
 			return 0;
 		}
+		if (constraintRules >= 0) {
+			return constraintRules;
+		}
 		Formula f = constraints.get();
 		return f.getChildren().size();
 	}
 
+	public String getName() {
+		return name;
+	}
+
+	public File getFolder() {
+		return folder;
+	}
+
+	public boolean containsAttributes() {
+		return containsAttributes;
+	}
+
+	public boolean containsConstraints() {
+		return containsConstraints;
+	}
+
+	public String getNameSuffix() {
+		return new Statistics(containsCustomAttributes, containsConstraints, containsCount, containsAttributes)
+			.getNameSuffix();
+	}
+
+	/**
+	 * @return the formula of the feature model without configuring constraints
+	 */
+	public Formula getFeatureModelFormula() {
+		return model.get();
+	}
+
 	public Formula getFormula() {
 		Formula formula = model.get();
 		if (constraints != null && constraints.isPresent()) {
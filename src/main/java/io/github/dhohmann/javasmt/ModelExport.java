@@ -0,0 +1,198 @@
+package io.github.dhohmann.javasmt;
+
+import org.sosy_lab.java_smt.SolverContextFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static io.github.dhohmann.javasmt.Prototype.LOGGER;
+
+/**
+ * Writes converted models as SMT-LIB2 or DIMACS files and reads them back, so
+ * the conversion can be cached on disk and the exact formulas can be replayed
+ * by standalone solvers.
+ */
+public class ModelExport {
+
+	public static final String SMTLIB_EXTENSION = ".smt2";
+	public static final String DIMACS_EXTENSION = ".dimacs";
+
+	/**
+	 * Streams all constraints of the session as one SMT-LIB2 script.
+	 */
+	public static void writeSmtLib(SolverSession session, Path file) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			session.getFormulaManager().dumpFormula(session.getFormula()).appendTo(writer);
+		}
+	}
+
+	/**
+	 * Reads an SMT-LIB2 script through the native parser of the solver.
+	 */
+	public static SolverSession readSmtLib(Path file, SolverContextFactory.Solvers solver) throws IOException {
+		return SolverSession.fromSmtLib(file, solver);
+	}
+
+	/**
+	 * Writes all constraints of the session in DIMACS format. Only applicable to
+	 * models without attributes. Variable names are listed as comments.
+	 */
+	public static void writeDimacs(SolverSession session, Path file) throws IOException {
+		Cnf cnf;
+		try {
+			cnf = Cnf.of(session, session.getFormula());
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted during CNF transformation", e);
+		}
+		writeDimacs(cnf, file);
+	}
+
+	public static void writeDimacs(Cnf cnf, Path file) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			int index = 1;
+			for (String name : cnf.getVariables()) {
+				writer.write("c " + index++ + " " + name);
+				writer.newLine();
+			}
+			writer.write("p cnf " + cnf.getVariables().size() + " " + cnf.getClauses().size());
+			writer.newLine();
+			StringBuilder line = new StringBuilder();
+			for (int[] clause : cnf.getClauses()) {
+				line.setLength(0);
+				for (int literal : clause) {
+					line.append(literal).append(' ');
+				}
+				line.append('0');
+				writer.write(line.toString());
+				writer.newLine();
+			}
+		}
+	}
+
+	public static Cnf readDimacs(Path file) throws IOException {
+		Cnf cnf = new Cnf();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			int declared = -1;
+			StringBuilder clause = new StringBuilder();
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith("c ")) {
+					String[] comment = line.split(" ", 3);
+					if (comment.length == 3 && comment[1].matches("\\d+")) {
+						if (cnf.getVariable(comment[2]) != Integer.parseInt(comment[1])) {
+							throw new IOException("Variable names are not numbered consecutively: " + line);
+						}
+					}
+					continue;
+				}
+				line = line.trim();
+				if (line.startsWith("p ")) {
+					declared = Integer.parseInt(line.split("\\s+")[2]);
+				} else if (!line.isEmpty()) {
+					clause.append(' ').append(line);
+					if (line.endsWith(" 0") || line.equals("0")) {
+						String[] literals = clause.toString().trim().split("\\s+");
+						int[] values = new int[literals.length - 1];
+						for (int i = 0; i < values.length; i++) {
+							values[i] = Integer.parseInt(literals[i]);
+						}
+						cnf.addClause(values);
+						clause.setLength(0);
+					}
+				}
+			}
+			for (int i = cnf.getVariables().size() + 1; i <= declared; i++) {
+				cnf.getVariable(Integer.toString(i));
+			}
+		}
+		return cnf;
+	}
+
+	public static SolverSession readDimacs(Path file, SolverContextFactory.Solvers solver) throws IOException {
+		Cnf cnf = readDimacs(file);
+		SolverSession session = new SolverSession(solver);
+		session.addConstraint(cnf.toFormula(session.getBooleanFormulaManager()));
+		return session;
+	}
+
+	/**
+	 * Exports all variants of a model into the given folder and logs the time of
+	 * the Java side translation compared to the native parser.
+	 */
+	public static void export(File modelFolder, File outputFolder, SolverContextFactory.Solvers solver)
+		throws IOException {
+		outputFolder.mkdirs();
+		export(Model.load(modelFolder, false, false), outputFolder, solver);
+		export(Model.load(modelFolder, true, false), outputFolder, solver);
+		export(Model.load(modelFolder, true, true), outputFolder, solver);
+		Model constraints = Model.load(modelFolder, true, true).appendConstraints();
+		if (constraints.getConstraints() > 0) {
+			export(constraints, outputFolder, solver);
+		}
+	}
+
+	private static void export(Model model, File outputFolder, SolverContextFactory.Solvers solver)
+		throws IOException {
+		String name = model.getName() + model.getNameSuffix();
+		Path smtFile = new File(outputFolder, name + SMTLIB_EXTENSION).toPath();
+
+		long startTranslation = System.currentTimeMillis();
+		try (SolverSession session = SolverSession.fromFormula(model.getFormula(), solver)) {
+			long translation = System.currentTimeMillis() - startTranslation;
+			writeSmtLib(session, smtFile);
+			if (!model.containsAttributes()) {
+				writeDimacs(session, new File(outputFolder, name + DIMACS_EXTENSION).toPath());
+			}
+
+			long startParse = System.currentTimeMillis();
+			readSmtLib(smtFile, solver).close();
+			long parse = System.currentTimeMillis() - startParse;
+			LOGGER.info("[" + name + "] Translation " + translation + " ms, native parsing " + parse + " ms");
+		}
+	}
+
+	/**
+	 * @return the cache file for the given model or {@code null} if it does not
+	 *         exist or is older than the model files
+	 */
+	static Path getCachedSmtLib(File cacheFolder, Model model, SolverContextFactory.Solvers solver) {
+		File file = getCacheFile(cacheFolder, model, solver);
+		if (!file.isFile()) {
+			return null;
+		}
+		long modified = file.lastModified();
+		File[] sources = model.getFolder().listFiles();
+		if (sources != null) {
+			for (File source : sources) {
+				if (source.lastModified() > modified) {
+					return null;
+				}
+			}
+		}
+		return file.toPath();
+	}
+
+	/**
+	 * The dump is written by the given solver, other backends may not be able to
+	 * parse it, so each backend has its own file.
+	 */
+	static File getCacheFile(File cacheFolder, Model model, SolverContextFactory.Solvers solver) {
+		return new File(cacheFolder, model.getName() + model.getNameSuffix() + "_" + solver.name()
+			+ SMTLIB_EXTENSION);
+	}
+
+	static void cache(File cacheFolder, Model model, SolverSession session) throws IOException {
+		cacheFolder.mkdirs();
+		Path temp = Files.createTempFile(cacheFolder.toPath(), model.getName(), SMTLIB_EXTENSION);
+		writeSmtLib(session, temp);
+		Files.move(temp, getCacheFile(cacheFolder, model, session.getSolver()).toPath(),
+			StandardCopyOption.REPLACE_EXISTING);
+	}
+}
@@ -0,0 +1,251 @@
+package io.github.dhohmann.javasmt;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Manifest of all models bundled in the jar. The manifest is generated at build
+ * time (see {@link #main(String[])}) and lists every file of every model folder
+ * with its size and checksum, so models can be extracted without scanning the
+ * class path and only if they changed since the last extraction.
+ */
+public class ModelIndex {
+
+	public static final String FILE_NAME = "models.index";
+	public static final String RESOURCE = "/models/" + FILE_NAME;
+	private static final String SEPARATOR = ";";
+
+	private final Map<String, Entry> entries = new TreeMap<>();
+
+	/**
+	 * Loads the manifest bundled with the application.
+	 *
+	 * @return the manifest or {@code null} if the application was built without
+	 *         one
+	 */
+	public static ModelIndex load() throws IOException {
+		InputStream stream = ModelIndex.class.getResourceAsStream(RESOURCE);
+		if (stream == null) {
+			return null;
+		}
+		try (stream) {
+			return read(stream);
+		}
+	}
+
+	public static ModelIndex read(InputStream stream) throws IOException {
+		ModelIndex index = new ModelIndex();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.isBlank() || line.startsWith("#")) {
+				continue;
+			}
+			String[] values = line.split(SEPARATOR);
+			if (values.length != 3) {
+				throw new IOException("Malformed model index entry: " + line);
+			}
+			index.add(new Entry(values[0], Long.parseLong(values[1]), values[2]));
+		}
+		return index;
+	}
+
+	/**
+	 * Creates a manifest for all files below the given models folder.
+	 *
+	 * @param modelFolder folder containing one sub folder per model
+	 */
+	public static ModelIndex scan(File modelFolder) throws IOException {
+		ModelIndex index = new ModelIndex();
+		Path root = modelFolder.toPath();
+		List<Path> files;
+		try (Stream<Path> walk = Files.walk(root)) {
+			files = walk.filter(Files::isRegularFile)
+				.filter(p -> !p.getFileName().toString().equals(FILE_NAME))
+				.collect(Collectors.toList());
+		}
+		for (Path file : files) {
+			String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+			index.add(new Entry(path, Files.size(file), checksum(file)));
+		}
+		return index;
+	}
+
+	private void add(Entry entry) {
+		entries.put(entry.path, entry);
+	}
+
+	public Set<String> getModelNames() {
+		return entries.keySet().stream().map(p -> p.substring(0, p.indexOf('/'))).collect(Collectors.toCollection(
+			TreeSet::new));
+	}
+
+	public List<Entry> getEntries() {
+		return Collections.unmodifiableList(new ArrayList<>(entries.values()));
+	}
+
+	/**
+	 * Extracts all bundled model files into the given folder, keeping the folder
+	 * layout of the jar. Files that were extracted before and did not change
+	 * according to the manifest stored in the folder are skipped.
+	 *
+	 * @param modelFolder target folder
+	 * @return the number of files that were copied
+	 */
+	public int extract(File modelFolder) throws IOException {
+		File localIndexFile = new File(modelFolder, FILE_NAME);
+		ModelIndex localIndex = new ModelIndex();
+		if (localIndexFile.isFile()) {
+			try (InputStream stream = Files.newInputStream(localIndexFile.toPath())) {
+				localIndex = read(stream);
+			}
+		}
+
+		int copied = 0;
+		for (Entry entry : entries.values()) {
+			File target = new File(modelFolder, entry.path);
+			Entry extracted = localIndex.entries.get(entry.path);
+			if (entry.equals(extracted) && target.length() == entry.size) {
+				continue;
+			}
+			target.getParentFile().mkdirs();
+			try (InputStream stream = ModelIndex.class.getResourceAsStream("/models/" + entry.path)) {
+				if (stream == null) {
+					throw new IOException("Model file " + entry.path + " listed in index but not bundled");
+				}
+				Files.copy(stream, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			copied++;
+		}
+
+		if (copied > 0 || !localIndexFile.isFile()) {
+			try (Writer writer = Files.newBufferedWriter(localIndexFile.toPath(), StandardCharsets.UTF_8)) {
+				write(writer);
+			}
+		}
+		return copied;
+	}
+
+	public void write(Writer writer) throws IOException {
+		BufferedWriter buffered = new BufferedWriter(writer);
+		buffered.write("# path;size;sha-256");
+		buffered.newLine();
+		for (Entry entry : entries.values()) {
+			buffered.write(entry.path + SEPARATOR + entry.size + SEPARATOR + entry.checksum);
+			buffered.newLine();
+		}
+		buffered.flush();
+	}
+
+	static String checksum(Path file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream stream = Files.newInputStream(file)) {
+			int length;
+			while ((length = stream.read(buffer)) != -1) {
+				digest.update(buffer, 0, length);
+			}
+		}
+		StringBuilder builder = new StringBuilder();
+		for (byte b : digest.digest()) {
+			builder.append(String.format("%02x", b));
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Generates the manifest during the build.
+	 *
+	 * @param args the output directory containing the {@code models} folder
+	 */
+	public static void main(String[] args) throws IOException {
+		// runs inside the Maven JVM, so errors must not exit
+		if (args.length != 1) {
+			throw new IllegalArgumentException("Usage: ModelIndex <output directory>");
+		}
+		File modelFolder = new File(args[0], "models");
+		if (!modelFolder.isDirectory()) {
+			throw new FileNotFoundException("No models found in " + modelFolder);
+		}
+		ModelIndex index = scan(modelFolder);
+		try (Writer writer = Files.newBufferedWriter(new File(modelFolder, FILE_NAME).toPath(),
+			StandardCharsets.UTF_8)) {
+			index.write(writer);
+		}
+		System.out.println("Indexed " + index.entries.size() + " files of " + index.getModelNames().size()
+			+ " models");
+	}
+
+	public static final class Entry {
+
+		private final String path;
+		private final long size;
+		private final String checksum;
+
+		Entry(String path, long size, String checksum) {
+			this.path = path;
+			this.size = size;
+			this.checksum = checksum;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public String getChecksum() {
+			return checksum;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry entry = (Entry) o;
+			return size == entry.size && path.equals(entry.path) && checksum.equals(entry.checksum);
+		}
+
+		@Override
+		public int hashCode() {
+			return path.hashCode() * 31 + checksum.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return path + SEPARATOR + size + SEPARATOR + checksum;
+		}
+	}
+}
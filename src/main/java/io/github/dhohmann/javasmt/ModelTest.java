@@ -9,9 +9,14 @@ import org.spldev.util.io.csv.CSVWriter;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
@@ -20,57 +25,141 @@ import static io.github.dhohmann.javasmt.Prototype.LOGGER;
 public class ModelTest implements Runnable {
 
 	public static int ITERATIONS = 5;
+	public static SolverContextFactory.Solvers SOLVER = SolverContextFactory.Solvers.Z3;
+	/**
+	 * Folder for converted models in SMT-LIB2 format. If set, the creation time
+	 * measures the native parser of the solver instead of the translation.
+	 */
+	public static File CACHE = null;
 	public static final long TIMEOUT = 30;
 	public static final TimeUnit TIMEOUT_UNIT = TimeUnit.SECONDS;
+	/**
+	 * Resource limit of the solver replacing the wall-clock {@link #TIMEOUT} for
+	 * satisfiability checks, {@code 0} if not used.
+	 */
+	public static long RESOURCE_LIMIT = 0;
+	/**
+	 * Journal recording finished iterations, completed iterations are skipped.
+	 */
+	public static ResultJournal JOURNAL = null;
+	/**
+	 * Appends the {@link ConflictExplainer#COLUMNS} of an explanation to each
+	 * result line.
+	 */
+	public static boolean EXPLAIN = false;
+	/**
+	 * Startup time of the JVM in milliseconds written to each result line,
+	 * {@code -1} if not measured. It is measured once, so all lines of a run
+	 * share the same value.
+	 */
+	public static long STARTUP = -1;
 
 	private final XmlExtendedFeatureModelFormat modelFormat = new XmlExtendedFeatureModelFormat();
 	private final String name;
 	private final CSVWriter csv;
 	private final File folder;
+	private final List<BenchmarkPlan.Cell> cells;
+	private final int warmup;
+
+	private SolverContextFactory.Solvers backend = SOLVER;
+	private long timeout = TIMEOUT;
+	/**
+	 * The last satisfiability check, which may still run on its thread after its
+	 * result was recorded as timeout.
+	 */
+	private CompletableFuture<Long> check = CompletableFuture.completedFuture(-1L);
 
 	public ModelTest(File modelFolder, CSVWriter csv) throws IOException {
+		this(modelFolder, csv, BenchmarkPlan.getDefault().expand(Collections.singletonList(modelFolder)), 1);
+	}
+
+	/**
+	 * @param cells  cells of the benchmark plan belonging to this model
+	 * @param warmup number of dry runs before the measurements
+	 */
+	public ModelTest(File modelFolder, CSVWriter csv, List<BenchmarkPlan.Cell> cells, int warmup) {
 		this.folder = modelFolder;
 		this.name = folder.getName();
 		this.csv = csv;
+		this.cells = cells;
+		this.warmup = warmup;
 	}
 
-	protected CompletableFuture<JavaSmtSolver> createSolver(Formula formula) {
-		CompletableFuture<JavaSmtSolver> creation = new CompletableFuture<>();
-		creation.completeAsync(() -> new JavaSmtSolver(formula, SolverContextFactory.Solvers.Z3));
+	protected CompletableFuture<SolverSession> createSolver(Model model) {
+		CompletableFuture<SolverSession> creation = new CompletableFuture<>();
+		Path cached = CACHE != null ? ModelExport.getCachedSmtLib(CACHE, model, backend) : null;
+		if (cached != null) {
+			creation.completeAsync(() -> {
+				try {
+					return SolverSession.fromSmtLib(cached, backend);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} else {
+			Formula formula = model.getFormula();
+			creation.completeAsync(() -> SolverSession.fromFormula(formula, backend));
+		}
 		return creation;
 	}
 
+	/**
+	 * Writes the cache file of the model before the measurements, so every
+	 * iteration measures the native parser instead of the first one measuring
+	 * the translation.
+	 */
+	private void prepareCache(Model model) {
+		if (ModelExport.getCachedSmtLib(CACHE, model, backend) != null) {
+			return;
+		}
+		try (SolverSession session = SolverSession.fromFormula(model.getFormula(), backend)) {
+			ModelExport.cache(CACHE, model, session);
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "[" + name + "] Could not cache model, measuring the translation", e);
+		}
+	}
+
 	public CompletableFuture execute() {
 		return CompletableFuture.runAsync(this);
 	}
 
 	@Override
 	public void run() {
-		performTest(Model.load(folder, false, false), true); // DRY-RUN
-
-		Model notExtended = Model.load(folder, false, false);
-		for (int i = 0; i < ITERATIONS; i++) {
-			performTest(notExtended);
+		if (!cells.isEmpty()) {
+			backend = cells.get(0).getBackend();
 		}
-
-		Model extendedAttributesNoCount = Model.load(folder, true, false);
-		for (int i = 0; i < ITERATIONS; i++) {
-			performTest(extendedAttributesNoCount);
-		}
-		Model extendedAttributesCount = Model.load(folder, true, true);
-		for (int i = 0; i < ITERATIONS; i++) {
-			performTest(extendedAttributesCount);
+		for (int i = 0; i < warmup; i++) {
+			performTest(Model.load(folder, false, false), true); // DRY-RUN
 		}
 
-		Model extendedAttributesCountConstraints = Model.load(folder, true, true).appendConstraints();
-		if (extendedAttributesCountConstraints.getConstraints() > 0) {
-			for (int i = 0; i < ITERATIONS; i++) {
-				performTest(extendedAttributesCountConstraints);
+		for (BenchmarkPlan.Cell cell : cells) {
+			Model model = cell.getVariant().load(folder);
+			if (cell.getVariant().hasConstraints() && model.getConstraints() <= 0) {
+				LOGGER.info("[" + name + "] No constraints present");
+				continue;
+			}
+			backend = cell.getBackend();
+			timeout = cell.getTimeout();
+			if (CACHE != null) {
+				prepareCache(model);
+			}
+			LOGGER.info("[" + name + "] Running cell " + cell);
+			for (int i = 0; i < cell.getIterations(); i++) {
+				if (JOURNAL == null) {
+					performTest(model);
+					continue;
+				}
+				String key = ResultJournal.key(cell, i);
+				try {
+					if (JOURNAL.isCompleted(key) || !JOURNAL.started(key)) {
+						continue;
+					}
+					JOURNAL.done(key, performTest(model));
+				} catch (IOException e) {
+					throw new UncheckedIOException("Could not write journal", e);
+				}
 			}
-		} else {
-			LOGGER.info("[" + name + "] No constraints present");
 		}
-
 	}
 
 	public void printStatistics() {
@@ -82,12 +171,15 @@ public class ModelTest implements Runnable {
 			.getStatistics());
 	}
 
-	protected void performTest(Model model) {
+	protected List<String> performTest(Model model) {
 		System.gc();
-		performTest(model, false);
+		return performTest(model, false);
 	}
 
-	protected void performTest(Model model, boolean dryRun) {
+	/**
+	 * @return the result line written to the CSV file, {@code null} for dry runs
+	 */
+	protected List<String> performTest(Model model, boolean dryRun) {
 		Model.Statistics stats = model.getStatistics();
 		LOGGER.info("Running " + stats);
 
@@ -103,15 +195,16 @@ public class ModelTest implements Runnable {
 			line.add(Integer.toString(stats.getAttributeVariables()));
 			line.add(Integer.toString(stats.getConfiguringConstraints()));
 		}
-		Formula formula = model.getFormula();
 		// Conversion from internal structure to JavaSMT structure
 		if (!dryRun) {
 			LOGGER.info("[" + name + "] Conversion starting");
 		}
-		JavaSmtSolver solver = null;
+		SolverSession solver = null;
+		SolverStatistics statistics = new SolverStatistics();
+		CompletableFuture<SolverSession> conversion = createSolver(model);
 		try {
 			long startConversion = System.currentTimeMillis();
-			solver = createSolver(formula).get(TIMEOUT, TIMEOUT_UNIT);
+			solver = conversion.get(timeout, TIMEOUT_UNIT);
 			long endConversion = System.currentTimeMillis();
 			CompletableFuture<Long> creation = CompletableFuture.completedFuture(endConversion - startConversion);
 			if (!dryRun) {
@@ -119,6 +212,8 @@ public class ModelTest implements Runnable {
 				line.add(Long.toString(creation.get()));
 			}
 		} catch (Exception e) {
+			// the session is still created in the background and has to be closed
+			conversion.thenAccept(SolverSession::close);
 			if (!dryRun) {
 				LOGGER.log(Level.INFO, "[" + name + "] Conversion timeout ", e);
 
@@ -131,10 +226,14 @@ public class ModelTest implements Runnable {
 			if (!dryRun) {
 				LOGGER.info("[" + name + "] Solution Check starting");
 			}
-			CompletableFuture<Long> hasSolution = hasSolution(solver);
+			CompletableFuture<Long> hasSolution = hasSolution(solver, statistics);
 			if (!dryRun) {
 				LOGGER.info("[" + name + "] Solution Check finished");
-				line.add(Long.toString(hasSolution.get(TIMEOUT, TIMEOUT_UNIT)));
+				if (isResourceLimited()) {
+					line.add(Long.toString(hasSolution.get()));
+				} else {
+					line.add(Long.toString(hasSolution.get(timeout, TIMEOUT_UNIT)));
+				}
 			}
 		} catch (Exception e) {
 			if (!dryRun) {
@@ -147,7 +246,7 @@ public class ModelTest implements Runnable {
 		 * try { // Analysis for number of solutions if (!dryRun) { LOGGER.info("[" +
 		 * name + "] Solution Count starting"); } CompletableFuture<Long> countSolutions
 		 * = countSolutions(solver); if (!dryRun) {
-		 * line.add(Long.toString(countSolutions.get(TIMEOUT, TIMEOUT_UNIT)));
+		 * line.add(Long.toString(countSolutions.get(timeout, TIMEOUT_UNIT)));
 		 * LOGGER.info("[" + name + "] Solution Count finished"); } } catch (Exception
 		 * e) { if (!dryRun) { LOGGER.log(Level.INFO, "[" + name +
 		 * "] Solution Count timeout", e);
@@ -156,10 +255,57 @@ public class ModelTest implements Runnable {
 		 */
 
 		line.add(Long.toString(-1L));
+		if (solver != null) {
+			solver.shutdownManager.requestShutdown("[" + name + "] Finished execution");
+			// the statistics are written by the check and complete once it returned
+			awaitCheck();
+		}
+		for (String column : SolverStatistics.COLUMNS) {
+			line.add(statistics.get(column));
+		}
+		line.add(backend.name());
+		line.add(Long.toString(timeout));
+		line.add(Long.toString(STARTUP));
+		if (EXPLAIN && !dryRun) {
+			line.addAll(explain(model));
+		}
 		if (!dryRun) {
 			appendTestResult(line);
 		}
-		solver.shutdownManager.requestShutdown("[" + name + "] Finished execution");
+		if (solver != null) {
+			solver.close();
+		}
+		return dryRun ? null : line;
+	}
+
+	/**
+	 * Waits until the last check left the prover, the context must not be closed
+	 * while it is still in use.
+	 */
+	private void awaitCheck() {
+		try {
+			check.join();
+		} catch (CompletionException | CancellationException e) {
+			// already recorded as timeout
+		}
+	}
+
+	private List<String> explain(Model model) {
+		LOGGER.info("[" + name + "] Explanation starting");
+		try (ConflictExplainer explainer = new ConflictExplainer(model, backend)) {
+			ConflictExplainer.Explanation explanation = explainer.explain(timeout, TIMEOUT_UNIT);
+			if (explanation.getReasons() != null) {
+				LOGGER.info("[" + name + "] No valid configuration because of " + explanation.getReasons());
+			}
+			LOGGER.info("[" + name + "] Explanation finished");
+			return explanation.toColumns();
+		} catch (IOException | InterruptedException e) {
+			LOGGER.log(Level.INFO, "[" + name + "] Explanation failed ", e);
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			return Collections.nCopies(ConflictExplainer.COLUMNS.size(), "-1");
+		}
 	}
 
 	private synchronized void appendTestResult(List<String> line) {
@@ -167,12 +313,34 @@ public class ModelTest implements Runnable {
 		csv.flush();
 	}
 
-	public CompletableFuture<Long> hasSolution(JavaSmtSolver solver) {
+	public CompletableFuture<Long> hasSolution(SolverSession solver) {
+		return hasSolution(solver, null);
+	}
+
+	/**
+	 * The resource limit only applies to Z3, other backends keep the wall-clock
+	 * timeout.
+	 */
+	private boolean isResourceLimited() {
+		return RESOURCE_LIMIT > 0 && backend == SolverContextFactory.Solvers.Z3;
+	}
+
+	/**
+	 * Measures the time of a satisfiability check bounded by the timeout of the
+	 * current cell. If a {@link #RESOURCE_LIMIT} is set and the backend is Z3,
+	 * the check is only bounded by the limit instead of the wall-clock timeout.
+	 *
+	 * @param statistics receives the statistics of the solver on the thread of
+	 *                   the check, they must not be read before it finished, may
+	 *                   be {@code null}
+	 */
+	public CompletableFuture<Long> hasSolution(SolverSession solver, SolverStatistics statistics) {
 		CompletableFuture<Long> future = new CompletableFuture<>();
 
 		CompletableFuture<Long> shutdown = new CompletableFuture<>();
-		long millisToSleep = TIMEOUT_UNIT.toMillis(TIMEOUT) > 100 ? 100 : TIMEOUT_UNIT.toMillis(TIMEOUT);
-		long shouldBeFinishedByNow = System.currentTimeMillis() + TIMEOUT_UNIT.toMillis(TIMEOUT);
+		long millisToSleep = TIMEOUT_UNIT.toMillis(timeout) > 100 ? 100 : TIMEOUT_UNIT.toMillis(timeout);
+		long shouldBeFinishedByNow = isResourceLimited() ? Long.MAX_VALUE
+			: System.currentTimeMillis() + TIMEOUT_UNIT.toMillis(timeout);
 
 		shutdown.completeAsync(() -> {
 			while (!future.isDone() && System.currentTimeMillis() < shouldBeFinishedByNow) {
@@ -196,20 +364,30 @@ public class ModelTest implements Runnable {
 			return -1L;
 		});
 
-		future.completeAsync(() -> {
+		check = CompletableFuture.supplyAsync(() -> {
 			long startHasSolution = System.currentTimeMillis();
-			SatSolver.SatResult solution = solver.hasSolution();
+			SatSolver.SatResult solution = solver.hasSolution(statistics);
 			long endHasSolution = System.currentTimeMillis();
+			if (solution == SatSolver.SatResult.TIMEOUT) {
+				return -1L;
+			}
 			return endHasSolution - startHasSolution;
-		}).completeOnTimeout(-1L, 1, TimeUnit.SECONDS);
+		});
+		check.whenComplete((time, e) -> {
+			if (e != null) {
+				future.completeExceptionally(e);
+			} else {
+				future.complete(time);
+			}
+		});
 		return shutdown;
 	}
 
 	public CompletableFuture<Long> countSolutions(JavaSmtSolver solver) {
 		CompletableFuture<Long> future = new CompletableFuture<>();
 
-		long shouldBeFinishedByNow = System.currentTimeMillis() + TIMEOUT_UNIT.toMillis(TIMEOUT);
-		long millisToSleep = TIMEOUT_UNIT.toMillis(TIMEOUT) > 100 ? 100 : TIMEOUT_UNIT.toMillis(TIMEOUT);
+		long shouldBeFinishedByNow = System.currentTimeMillis() + TIMEOUT_UNIT.toMillis(timeout);
+		long millisToSleep = TIMEOUT_UNIT.toMillis(timeout) > 100 ? 100 : TIMEOUT_UNIT.toMillis(timeout);
 		CompletableFuture<Long> shutdown = new CompletableFuture<>();
 		shutdown.supplyAsync(() -> {
 			while (!future.isDone() && System.currentTimeMillis() < shouldBeFinishedByNow) {
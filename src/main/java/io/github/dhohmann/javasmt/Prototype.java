@@ -1,9 +1,14 @@
 package io.github.dhohmann.javasmt;
 
+import org.spldev.formula.expression.Formula;
 import org.spldev.util.io.csv.CSVWriter;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -17,6 +22,8 @@ public class Prototype {
 	static File FOLDER;
 	static Logger LOGGER;
 
+	private static final String SHARED_ARCHIVE_OPTION = "-XX:SharedArchiveFile=";
+
 	static {
 		FOLDER = new File(Prototype.class.getProtectionDomain().getCodeSource().getLocation().getFile());
 		while (!FOLDER.isDirectory()) {
@@ -61,42 +68,396 @@ public class Prototype {
 		}
 	}
 
+	/**
+	 * Fallback for builds without a model index: scans the class path for bundled
+	 * model files and copies them, keeping the folder layout below
+	 * {@code models/}.
+	 */
 	public static void copyModels(File folder) throws IOException {
-		Collection<String> resources = ResourceList.getResources(Pattern.compile(".*model\\.xml"));
-		for (String model : resources) {
-			InputStream modelStream = Prototype.class.getResourceAsStream(model);
-			String s = model.substring(model.indexOf("models/") + 8, model.indexOf("model.xml") - 1);
-			FileOutputStream fileOutputStream = new FileOutputStream(new File(folder, s));
-			byte[] buffer = new byte[256];
-			int length = -1;
-			while ((length = modelStream.read(buffer)) != -1) {
-				fileOutputStream.write(buffer, 0, length);
+		Collection<String> resources = ResourceList.getResources(Pattern.compile(".*models/.+\\.xml"));
+		for (String resource : resources) {
+			String model = resource.replace(File.separatorChar, '/');
+			model = model.substring(model.lastIndexOf("models/") + 7);
+			File target = new File(folder, model);
+			target.getParentFile().mkdirs();
+			try (InputStream modelStream = Prototype.class.getResourceAsStream("/models/" + model)) {
+				if (modelStream == null) {
+					LOGGER.warning("Could not open model file " + resource);
+					continue;
+				}
+				Files.copy(modelStream, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
 			}
-			modelStream.close();
-			fileOutputStream.close();
 		}
 	}
 
 	public static List<File> getModels() {
 		List<File> models = new ArrayList<>();
 		File modelFolder = new File(FOLDER, "models");
-		if (!modelFolder.exists()) {
-			modelFolder.mkdir();
-			try {
-				LOGGER.info("Copying models from jar");
+		modelFolder.mkdirs();
+		try {
+			ModelIndex index = ModelIndex.load();
+			if (index == null) {
+				LOGGER.warning("No model index bundled, copying models found on the class path");
 				copyModels(modelFolder);
-			} catch (IOException e) {
-				e.printStackTrace();
+			} else {
+				int copied = index.extract(modelFolder);
+				if (copied > 0) {
+					LOGGER.info("Extracted " + copied + " changed model files from jar");
+				}
 			}
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Could not extract models", e);
 		}
 		File[] files = modelFolder.listFiles((f) -> f.isDirectory());
-		if (files.length > 0) {
+		if (files != null && files.length > 0) {
 			Arrays.stream(files).forEach(f -> models.add(f));
 		}
 		return models;
 	}
 
+	/**
+	 * Compares a candidate result file with a baseline and prints all significant
+	 * changes.
+	 *
+	 * @return {@code 1} if a significant regression was found, {@code 2} if no
+	 *         cell of the candidate has a baseline, {@code 0} otherwise
+	 */
+	static int compare(CommandLineParser parser) throws IOException {
+		String[] baseline = parser.getArgumentValue("b");
+		String[] candidate = parser.getArgumentValue("c");
+		if (baseline == null || candidate == null) {
+			System.out.println("Usage: compare -b <baseline> -c <candidate> [-alpha <level>] [-threshold <change>]"
+				+ " [-metrics <column>...]");
+			return 4;
+		}
+		ResultComparison comparison = new ResultComparison();
+		String[] alpha = parser.getArgumentValue("alpha");
+		if (alpha != null && alpha.length > 0) {
+			comparison.setAlpha(Double.parseDouble(alpha[0]));
+		}
+		String[] threshold = parser.getArgumentValue("threshold");
+		if (threshold != null && threshold.length > 0) {
+			comparison.setThreshold(Double.parseDouble(threshold[0]));
+		}
+		String[] metrics = parser.getArgumentValue("metrics");
+		if (metrics != null && metrics.length > 0) {
+			comparison.setMetrics(Arrays.asList(metrics));
+		}
+
+		List<ResultComparison.Change> changes = comparison.compare(new File(baseline[0]).toPath(), new File(
+			candidate[0]).toPath());
+		for (String cell : comparison.getUnmatched()) {
+			System.out.println("No baseline for " + cell);
+		}
+		for (String cell : comparison.getMissing()) {
+			System.out.println("Missing in candidate: " + cell);
+		}
+		if (comparison.getMatched() == 0) {
+			System.out.println("No cell of the candidate matches the baseline, nothing was compared");
+			return 2;
+		}
+		boolean regression = false;
+		for (ResultComparison.Change change : changes) {
+			System.out.println(change);
+			regression |= change.isRegression();
+		}
+		if (changes.isEmpty()) {
+			System.out.println("No significant changes in " + comparison.getMatched() + " cells");
+		}
+		return regression ? 1 : 0;
+	}
+
+	/**
+	 * Writes the valid configurations of one model as they are found.
+	 */
+	static int enumerate(CommandLineParser parser) throws IOException {
+		Model model = loadModel(parser);
+		if (model == null) {
+			System.out.println("Usage: enumerate -m <model> [-constraints] [-filter <constraints.xml>]"
+				+ " [-features <name>...] [-limit <n>] [-o <file>]");
+			return 4;
+		}
+		Formula filter = loadFilter(parser, model);
+		String[] features = parser.getArgumentValue("features");
+		String[] limitArgs = parser.getArgumentValue("limit");
+		long limit = limitArgs != null && limitArgs.length > 0 ? Long.parseLong(limitArgs[0]) : 0;
+		File output = getOutput(parser, model.getName() + ".configurations");
+
+		long start = System.currentTimeMillis();
+		try (ConfigurationEnumerator enumerator = new ConfigurationEnumerator(model, filter, features != null
+			? Arrays.asList(features) : null, ModelTest.SOLVER);
+			Writer writer = new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)) {
+			long count = enumerator.write(writer, limit);
+			LOGGER.info("[" + model.getName() + "] Enumerated " + count + " configurations in "
+				+ (System.currentTimeMillis() - start) + " ms into " + output);
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			return 4;
+		}
+		return 0;
+	}
+
+	/**
+	 * Writes a uniform or t-wise sample of the valid configurations of one model.
+	 */
+	static int sample(CommandLineParser parser) throws IOException {
+		Model model = loadModel(parser);
+		if (model == null) {
+			System.out.println("Usage: sample -m <model> [-mode uniform|twise] [-n <count>] [-t <strength>]"
+				+ " [-threads <n>] [-seed <seed>] [-constraints] [-filter <constraints.xml>]"
+				+ " [-features <name>...] [-o <file>]");
+			return 4;
+		}
+		Formula filter = loadFilter(parser, model);
+		String[] features = parser.getArgumentValue("features");
+		String[] modeArgs = parser.getArgumentValue("mode");
+		String mode = modeArgs != null && modeArgs.length > 0 ? modeArgs[0] : "uniform";
+		int count = getInt(parser, "n", 0);
+		int threads = getInt(parser, "threads", Runtime.getRuntime().availableProcessors());
+		File output = getOutput(parser, model.getName() + "_" + mode + ".sample");
+
+		List<Configuration> sample;
+		try (ConfigurationSampler sampler = new ConfigurationSampler(model, filter, features != null ? Arrays
+			.asList(features) : null, ModelTest.SOLVER, threads)) {
+			if ("uniform".equals(mode)) {
+				String[] seedArgs = parser.getArgumentValue("seed");
+				long seed = seedArgs != null && seedArgs.length > 0 ? Long.parseLong(seedArgs[0]) : System
+					.nanoTime();
+				sample = sampler.sampleUniform(count > 0 ? count : 100, seed);
+			} else if ("twise".equals(mode)) {
+				sample = sampler.sampleTWise(getInt(parser, "t", 2), count);
+			} else {
+				System.out.println("Unknown sampling mode " + mode);
+				return 4;
+			}
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			return 4;
+		}
+		try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output),
+			StandardCharsets.UTF_8))) {
+			for (Configuration configuration : sample) {
+				writer.write(configuration.toString());
+				writer.newLine();
+			}
+		}
+		LOGGER.info("[" + model.getName() + "] Wrote sample to " + output);
+		return 0;
+	}
+
+	/**
+	 * Writes the slice of one model onto a subtree or a set of features as DIMACS
+	 * and compares the cost of a satisfiability check with the whole model.
+	 */
+	static int slice(CommandLineParser parser) throws IOException, InterruptedException {
+		Model model = loadModel(parser, false, false);
+		String[] rootArgs = parser.getArgumentValue("root");
+		String[] features = parser.getArgumentValue("features");
+		if (model == null || (rootArgs == null || rootArgs.length == 0) == (features == null
+			|| features.length == 0)) {
+			System.out.println("Usage: slice -m <model> (-root <feature> | -features <name>...) [-constraints]"
+				+ " [-o <file>]");
+			System.out.println("  -constraints only works for constraints without attributes");
+			return 4;
+		}
+		FormulaSlicer slicer = FormulaSlicer.of(model, ModelTest.SOLVER);
+		FormulaSlicer.Slice slice;
+		try {
+			slice = rootArgs != null && rootArgs.length > 0 ? slicer.sliceSubtree(rootArgs[0])
+				: slicer.slice(Arrays.asList(features));
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			return 4;
+		}
+		File output = getOutput(parser, model.getName() + "_slice" + ModelExport.DIMACS_EXTENSION);
+		ModelExport.writeDimacs(slice.getCnf(), output.toPath());
+		LOGGER.info("[" + model.getName() + "] Sliced " + slice.getFeatures().size() + " of " + model
+			.getFeatureNames().size() + " features in " + slice.getTime() / 1_000_000 + " ms: "
+			+ slice.getCnf().getClauses().size() + " of " + slicer.getCnf().getClauses().size()
+			+ " clauses written to " + output);
+
+		for (Formula formula : Arrays.asList(slice.getFormula(), model.getFormula())) {
+			long start = System.nanoTime();
+			try (SolverSession session = SolverSession.fromFormula(formula, ModelTest.SOLVER)) {
+				LOGGER.info("[" + model.getName() + "] " + (formula == model.getFormula() ? "Model" : "Slice")
+					+ " is " + session.hasSolution() + " after " + (System.nanoTime() - start) / 1_000_000
+					+ " ms");
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Writes the cost of a satisfiability check of one model after each batch of
+	 * its configuring constraints.
+	 */
+	static int batches(CommandLineParser parser) throws IOException {
+		String[] modelArgs = parser.getArgumentValue("m");
+		File folder = modelArgs == null || modelArgs.length == 0 ? null
+			: getModels().stream().filter(f -> f.getName().equals(modelArgs[0])).findFirst().orElse(null);
+		if (folder == null) {
+			System.out.println("Usage: batches -m <model> [-b <rules per batch>] [-rules <constraints.xml>]"
+				+ " [-o <file>]");
+			return 4;
+		}
+		Model model = Model.load(folder, true, true);
+		String[] rulesArgs = parser.getArgumentValue("rules");
+		File constraints = rulesArgs != null && rulesArgs.length > 0 ? new File(rulesArgs[0])
+			: new File(folder, "constraints.xml");
+		if (!constraints.exists()) {
+			System.out.println("No constraints present for " + model.getName());
+			return 4;
+		}
+		File output = getOutput(parser, model.getName() + "_batches.csv");
+
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)) {
+			int rules = new ConstraintCostCurve(model, ModelTest.SOLVER, ModelTest.TIMEOUT).measure(constraints,
+				getInt(parser, "b", 1), writer);
+			LOGGER.info("[" + model.getName() + "] Asserted " + rules + " rules, cost curve written to " + output);
+		}
+		return 0;
+	}
+
+	/**
+	 * Prints a minimal set of feature model clauses, configuring constraints and
+	 * filters that together have no valid configuration.
+	 */
+	static int explain(CommandLineParser parser) throws IOException, InterruptedException {
+		Model model = loadModel(parser);
+		if (model == null) {
+			System.out.println("Usage: explain -m <model> [-constraints] [-rules <constraints.xml>]"
+				+ " [-filter <constraints.xml>]");
+			return 4;
+		}
+		try (ConflictExplainer explainer = new ConflictExplainer(model, ModelTest.SOLVER)) {
+			String[] rulesArgs = parser.getArgumentValue("rules");
+			if (rulesArgs != null && rulesArgs.length > 0) {
+				explainer.addRules(model, new File(rulesArgs[0]));
+			}
+			Formula filter = loadFilter(parser, model);
+			if (filter != null) {
+				explainer.add("filter", filter);
+			}
+			ConflictExplainer.Explanation explanation = explainer.explain(ModelTest.TIMEOUT, ModelTest.TIMEOUT_UNIT);
+			if (explanation.isTimeout()) {
+				System.out.println("Explanation timeout after " + ModelTest.TIMEOUT + " " + ModelTest.TIMEOUT_UNIT);
+				return 1;
+			} else if (explanation.isSatisfiable()) {
+				System.out.println(model.getName() + " has valid configurations");
+			} else {
+				System.out.println(model.getName() + " has no valid configuration because of:");
+				for (String reason : explanation.getReasons()) {
+					System.out.println("  " + reason);
+				}
+			}
+			LOGGER.info("[" + model.getName() + "] Core of " + explanation.getExtractedSize() + " parts extracted in "
+				+ explanation.getExtractionTime() / 1_000_000 + " ms, minimized in " + explanation
+					.getMinimizationTime() / 1_000_000 + " ms");
+		}
+		return 0;
+	}
+
+	/**
+	 * Loads the model given by {@code -m} with attributes, and with its
+	 * configuring constraints if {@code -constraints} is given.
+	 *
+	 * @return the model or {@code null} if it was not found
+	 */
+	private static Model loadModel(CommandLineParser parser) {
+		return loadModel(parser, true, true);
+	}
+
+	private static Model loadModel(CommandLineParser parser, boolean useAttributes, boolean generateCount) {
+		String[] modelArgs = parser.getArgumentValue("m");
+		if (modelArgs == null || modelArgs.length == 0) {
+			return null;
+		}
+		File folder = getModels().stream().filter(f -> f.getName().equals(modelArgs[0])).findFirst().orElse(null);
+		if (folder == null) {
+			System.out.println("Model " + modelArgs[0] + " not found");
+			return null;
+		}
+		Model model = Model.load(folder, useAttributes, generateCount);
+		if (parser.getFlag("constraints")) {
+			model.appendConstraints();
+		}
+		return model;
+	}
+
+	private static Formula loadFilter(CommandLineParser parser, Model model) throws IOException {
+		String[] filterArgs = parser.getArgumentValue("filter");
+		if (filterArgs == null || filterArgs.length == 0) {
+			return null;
+		}
+		try (InputStream stream = new FileInputStream(filterArgs[0])) {
+			Formula filter = model.loadConstraints(stream).orElse(org.spldev.util.logging.Logger::logProblems);
+			if (filter == null) {
+				throw new IOException("Could not read filter " + filterArgs[0]);
+			}
+			return filter;
+		}
+	}
+
+	private static File getOutput(CommandLineParser parser, String defaultName) {
+		String[] oArgs = parser.getArgumentValue("o");
+		return oArgs != null && oArgs.length > 0 ? new File(oArgs[0]).getAbsoluteFile()
+			: new File(FOLDER, defaultName);
+	}
+
+	private static int getInt(CommandLineParser parser, String name, int defaultValue) {
+		String[] values = parser.getArgumentValue(name);
+		return values != null && values.length > 0 ? Integer.parseInt(values[0]) : defaultValue;
+	}
+
+	/**
+	 * Merges the result files of several shards into one file.
+	 *
+	 * @param args the output file followed by the files to merge
+	 */
+	static int merge(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: merge <output> <result file>...");
+			return 4;
+		}
+		ResultFile merged = null;
+		for (int i = 1; i < args.length; i++) {
+			ResultFile result = ResultFile.read(new File(args[i]).toPath());
+			if (merged == null) {
+				merged = new ResultFile(result.getHeader());
+			} else if (!merged.getHeader().equals(result.getHeader())) {
+				System.out.println("Header of " + args[i] + " does not match");
+				return 4;
+			}
+			for (List<String> line : result.getLines()) {
+				merged.addLine(line);
+			}
+		}
+		merged.write(new File(args[0]).toPath());
+		LOGGER.info("Merged " + merged.getLines().size() + " lines into " + args[0]);
+		return 0;
+	}
+
+	/**
+	 * Measures the time from the start of the JVM until now, i.e. JVM boot, class
+	 * loading and initialization before the first analysis, and logs whether a
+	 * class data archive was given.
+	 *
+	 * @return the startup time in milliseconds
+	 */
+	static long measureStartup() {
+		RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+		String archive = runtime.getInputArguments().stream()
+			.filter(a -> a.startsWith(SHARED_ARCHIVE_OPTION))
+			.map(a -> a.substring(SHARED_ARCHIVE_OPTION.length()))
+			.findFirst().orElse(null);
+		long startup = runtime.getUptime();
+		LOGGER.info("Startup took " + startup + " ms " + (archive != null ? "with class data archive " + archive
+			: "without class data archive"));
+		return startup;
+	}
+
 	public static void main(String[] args) throws IOException, ExecutionException, InterruptedException {
+		ModelTest.STARTUP = measureStartup();
 
 		CommandLineParser parser = new CommandLineParser(args);
 
@@ -112,9 +473,79 @@ public class Prototype {
 			}
 		}
 
+		String[] rlimitArgs = parser.getArgumentValue("rlimit");
+		if (rlimitArgs != null && rlimitArgs.length > 0) {
+			long limit = Long.parseLong(rlimitArgs[0]);
+			if (limit <= 0) {
+				System.out.println("Resource limit cannot be 0 or negative");
+				System.exit(4);
+			}
+			SolverSession.setResourceLimit(ModelTest.SOLVER, limit);
+			ModelTest.RESOURCE_LIMIT = limit;
+		}
+
+		ModelTest.EXPLAIN = parser.getFlag("explain");
+
+		String[] cacheArgs = parser.getArgumentValue("cache");
+		if (cacheArgs != null && cacheArgs.length > 0) {
+			ModelTest.CACHE = new File(cacheArgs[0]).getAbsoluteFile();
+		}
+
 		if (args.length > 0) {
 			if ("stats".equals(args[0])) {
 				stats = true;
+			} else if ("compare".equals(args[0])) {
+				System.exit(compare(parser));
+			} else if ("enumerate".equals(args[0])) {
+				System.exit(enumerate(parser));
+			} else if ("sample".equals(args[0])) {
+				System.exit(sample(parser));
+			} else if ("slice".equals(args[0])) {
+				System.exit(slice(parser));
+			} else if ("batches".equals(args[0])) {
+				System.exit(batches(parser));
+			} else if ("explain".equals(args[0])) {
+				System.exit(explain(parser));
+			} else if ("merge".equals(args[0])) {
+				System.exit(merge(Arrays.copyOfRange(args, 1, args.length)));
+			} else if ("export".equals(args[0])) {
+				String[] oArgs = parser.getArgumentValue("o");
+				File output = new File(FOLDER, "export");
+				if (oArgs != null && oArgs.length > 0) {
+					output = new File(oArgs[0]).getAbsoluteFile();
+				}
+				for (File model : getModels()) {
+					ModelExport.export(model, output, ModelTest.SOLVER);
+				}
+				LOGGER.info("Exported models to " + output);
+				return;
+			}
+		}
+
+		BenchmarkPlan plan = BenchmarkPlan.getDefault();
+		String[] planArgs = parser.getArgumentValue("plan");
+		if (planArgs != null && planArgs.length > 0) {
+			plan = BenchmarkPlan.load(new File(planArgs[0]));
+		}
+		if (iArgs != null && iArgs.length > 0) {
+			plan.setIterations(ModelTest.ITERATIONS);
+		}
+		int shard = 1, shards = 1;
+		String[] shardArgs = parser.getArgumentValue("shard");
+		if (shardArgs != null && shardArgs.length > 0) {
+			String[] values = shardArgs[0].split("/");
+			try {
+				if (values.length != 2) {
+					throw new NumberFormatException();
+				}
+				shard = Integer.parseInt(values[0].trim());
+				shards = Integer.parseInt(values[1].trim());
+			} catch (NumberFormatException e) {
+				shards = 0;
+			}
+			if (shards <= 0 || shard <= 0 || shard > shards) {
+				System.out.println("Shard must be given as k/n with 1 <= k <= n");
+				System.exit(4);
 			}
 		}
 
@@ -123,7 +554,9 @@ public class Prototype {
 		Date date = new Date();
 		SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMddHHmmss");
 
-		csv.setFileName(new File(FOLDER, "model" + dateFormat.format(date) + ".csv").getAbsolutePath());
+		String suffix = shards > 1 ? "_shard" + shard + "of" + shards : "";
+		File csvFile = new File(FOLDER, "model" + dateFormat.format(date) + suffix + ".csv");
+		csv.setFileName(csvFile.getAbsolutePath());
 		csv.setSeparator(";");
 		csv.setHeader(new ArrayList<>());
 		csv.addHeaderValue("model");
@@ -137,22 +570,70 @@ public class Prototype {
 		csv.addHeaderValue("creation");
 		csv.addHeaderValue("hasSolution");
 		csv.addHeaderValue("countSolutions");
+		for (String column : SolverStatistics.COLUMNS) {
+			csv.addHeaderValue(column);
+		}
+		csv.addHeaderValue("backend");
+		csv.addHeaderValue("timeout");
+		csv.addHeaderValue("startup");
+		if (ModelTest.EXPLAIN) {
+			for (String column : ConflictExplainer.COLUMNS) {
+				csv.addHeaderValue(column);
+			}
+		}
 
 		List<File> tests = getModels();
 		if (tests.isEmpty()) {
 			System.exit(4);
 		}
-		for (File name : tests) {
-			final ModelTest test = new ModelTest(name, csv);
-			if (stats) {
-				test.printStatistics();
-			} else {
-				CompletableFuture f = test.execute();
-				f.thenRun(() -> {
-					LOGGER.info("Finished " + test);
-				});
-				f.get();
+		if (!stats) {
+			String[] resumeArgs = parser.getArgumentValue("resume");
+			File journal = new File(csvFile.getPath() + ResultJournal.EXTENSION);
+			if (resumeArgs != null && resumeArgs.length > 0) {
+				journal = new File(resumeArgs[0]).getAbsoluteFile();
+				if (!journal.isFile()) {
+					System.out.println("Journal " + journal + " does not exist");
+					System.exit(4);
+				}
+			}
+			ModelTest.JOURNAL = ResultJournal.open(journal.toPath());
+			List<List<String>> finished = ModelTest.JOURNAL.getResults();
+			if (!finished.isEmpty()) {
+				LOGGER.info("Resuming " + journal + " with " + finished.size() + " finished iterations");
+				for (List<String> line : finished) {
+					csv.addLine(line);
+				}
+				csv.flush();
+			}
+		}
+		if (stats) {
+			for (File name : tests) {
+				new ModelTest(name, csv).printStatistics();
 			}
+			return;
+		}
+
+		List<BenchmarkPlan.Cell> cells = plan.expand(tests);
+		if (shards > 1) {
+			int total = cells.size();
+			cells = BenchmarkPlan.shard(cells, shard, shards);
+			LOGGER.info("Running shard " + shard + "/" + shards + " with " + cells.size() + " of " + total
+				+ " cells");
+		}
+		Map<File, List<BenchmarkPlan.Cell>> cellsByModel = new LinkedHashMap<>();
+		for (BenchmarkPlan.Cell cell : cells) {
+			cellsByModel.computeIfAbsent(cell.getModel(), m -> new ArrayList<>()).add(cell);
+		}
+		for (Map.Entry<File, List<BenchmarkPlan.Cell>> model : cellsByModel.entrySet()) {
+			final ModelTest test = new ModelTest(model.getKey(), csv, model.getValue(), plan.getWarmup());
+			CompletableFuture f = test.execute();
+			f.thenRun(() -> {
+				LOGGER.info("Finished " + test);
+			});
+			f.get();
+		}
+		if (ModelTest.JOURNAL != null) {
+			ModelTest.JOURNAL.close();
 		}
 
 //        ModelTest pc_config = new ModelTest("pc_config");
@@ -0,0 +1,303 @@
+package io.github.dhohmann.javasmt;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a candidate result file with a baseline. Lines are matched by model
+ * including the variant suffix, backend and timeout. Files written before the
+ * backend and timeout columns existed were measured with the defaults of
+ * {@link ModelTest}. For each metric the distributions are compared with a
+ * two-sided Mann-Whitney U test, timeouts ({@code -1}) are ranked as the
+ * slowest possible value. The {@code startup} column is measured once per JVM
+ * and repeated on every line, so it is no sample per line and not compared by
+ * default.
+ */
+public class ResultComparison {
+
+	public static final List<String> DEFAULT_METRICS = Arrays.asList("creation", "hasSolution", "countSolutions");
+	private static final List<String> KEY_COLUMNS = Arrays.asList("model", "backend", "timeout");
+	private static final Map<String, String> KEY_DEFAULTS = new LinkedHashMap<>();
+
+	static {
+		KEY_DEFAULTS.put("backend", ModelTest.SOLVER.name());
+		KEY_DEFAULTS.put("timeout", Long.toString(ModelTest.TIMEOUT));
+	}
+
+	private double alpha = 0.05;
+	private double threshold = 0.1;
+	private final List<String> metrics = new ArrayList<>();
+	private final List<String> unmatched = new ArrayList<>();
+	private final List<String> missing = new ArrayList<>();
+	private int matched = 0;
+
+	public ResultComparison() {
+		metrics.addAll(DEFAULT_METRICS);
+		metrics.addAll(SolverStatistics.COLUMNS);
+	}
+
+	/**
+	 * @param alpha significance level of the test
+	 */
+	public void setAlpha(double alpha) {
+		this.alpha = alpha;
+	}
+
+	/**
+	 * @param threshold minimal relative change of the median to be reported, e.g.
+	 *                  {@code 0.1} for 10%
+	 */
+	public void setThreshold(double threshold) {
+		this.threshold = threshold;
+	}
+
+	public void setMetrics(List<String> metrics) {
+		this.metrics.clear();
+		this.metrics.addAll(metrics);
+	}
+
+	public List<Change> compare(Path baseline, Path candidate) throws IOException {
+		return compare(ResultFile.read(baseline), ResultFile.read(candidate));
+	}
+
+	/**
+	 * @return all significant changes, regressions first, ordered by their
+	 *         relative change
+	 */
+	public List<Change> compare(ResultFile baseline, ResultFile candidate) {
+		Map<String, List<List<String>>> baselineCells = group(baseline);
+		Map<String, List<List<String>>> candidateCells = group(candidate);
+
+		unmatched.clear();
+		missing.clear();
+		matched = 0;
+		for (String cell : baselineCells.keySet()) {
+			if (!candidateCells.containsKey(cell)) {
+				missing.add(cell);
+			}
+		}
+
+		List<Change> changes = new ArrayList<>();
+		for (Map.Entry<String, List<List<String>>> cell : candidateCells.entrySet()) {
+			List<List<String>> baselineLines = baselineCells.get(cell.getKey());
+			if (baselineLines == null) {
+				unmatched.add(cell.getKey());
+				continue;
+			}
+			matched++;
+			for (String metric : metrics) {
+				if (!baseline.hasColumn(metric) || !candidate.hasColumn(metric)) {
+					continue;
+				}
+				double[] before = values(baseline, baselineLines, metric);
+				double[] after = values(candidate, cell.getValue(), metric);
+				Change change = compare(cell.getKey(), metric, before, after);
+				if (change != null && change.pValue < alpha && Math.abs(change.relativeChange) >= threshold) {
+					changes.add(change);
+				}
+			}
+		}
+		changes.sort(Comparator.comparing((Change c) -> !c.isRegression()).thenComparingDouble(c -> -Math.abs(
+			c.relativeChange)));
+		return changes;
+	}
+
+	/**
+	 * @return the number of candidate cells of the last comparison that had a
+	 *         baseline
+	 */
+	public int getMatched() {
+		return matched;
+	}
+
+	/**
+	 * @return the candidate cells of the last comparison without a baseline
+	 */
+	public List<String> getUnmatched() {
+		return Collections.unmodifiableList(unmatched);
+	}
+
+	/**
+	 * @return the baseline cells of the last comparison missing in the candidate
+	 */
+	public List<String> getMissing() {
+		return Collections.unmodifiableList(missing);
+	}
+
+	private Map<String, List<List<String>>> group(ResultFile file) {
+		Map<String, List<List<String>>> cells = new LinkedHashMap<>();
+		for (List<String> line : file.getLines()) {
+			StringBuilder key = new StringBuilder();
+			for (String column : KEY_COLUMNS) {
+				String value = file.hasColumn(column) ? file.get(line, column) : KEY_DEFAULTS.get(column);
+				key.append(key.length() > 0 ? "/" : "").append(value);
+			}
+			cells.computeIfAbsent(key.toString(), k -> new ArrayList<>()).add(line);
+		}
+		return cells;
+	}
+
+	private double[] values(ResultFile file, List<List<String>> lines, String metric) {
+		double[] values = new double[lines.size()];
+		for (int i = 0; i < values.length; i++) {
+			double value = Double.parseDouble(file.get(lines.get(i), metric));
+			values[i] = value < 0 ? Double.POSITIVE_INFINITY : value;
+		}
+		return values;
+	}
+
+	private Change compare(String cell, String metric, double[] before, double[] after) {
+		if (before.length < 2 || after.length < 2) {
+			return null;
+		}
+		double medianBefore = median(before);
+		double medianAfter = median(after);
+		if (Double.isInfinite(medianBefore) && Double.isInfinite(medianAfter)) {
+			// not measured or always timed out
+			return null;
+		}
+		double relativeChange;
+		if (Double.isInfinite(medianAfter)) {
+			relativeChange = Double.POSITIVE_INFINITY;
+		} else if (Double.isInfinite(medianBefore)) {
+			relativeChange = -1;
+		} else if (medianBefore == 0) {
+			relativeChange = medianAfter == 0 ? 0 : Double.POSITIVE_INFINITY;
+		} else {
+			relativeChange = (medianAfter - medianBefore) / medianBefore;
+		}
+		return new Change(cell, metric, medianBefore, medianAfter, relativeChange, mannWhitneyU(before, after));
+	}
+
+	static double median(double[] values) {
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int middle = sorted.length / 2;
+		if (sorted.length % 2 == 1) {
+			return sorted[middle];
+		}
+		if (Double.isInfinite(sorted[middle - 1]) || Double.isInfinite(sorted[middle])) {
+			return Double.max(sorted[middle - 1], sorted[middle]);
+		}
+		return (sorted[middle - 1] + sorted[middle]) / 2;
+	}
+
+	/**
+	 * Two-sided Mann-Whitney U test using the normal approximation with tie
+	 * correction.
+	 *
+	 * @return the p-value
+	 */
+	static double mannWhitneyU(double[] x, double[] y) {
+		int n1 = x.length;
+		int n2 = y.length;
+		int n = n1 + n2;
+		double[][] all = new double[n][];
+		for (int i = 0; i < n1; i++) {
+			all[i] = new double[] { x[i], 0 };
+		}
+		for (int i = 0; i < n2; i++) {
+			all[n1 + i] = new double[] { y[i], 1 };
+		}
+		Arrays.sort(all, Comparator.comparingDouble(v -> v[0]));
+
+		double rankSumX = 0;
+		double tieCorrection = 0;
+		int i = 0;
+		while (i < n) {
+			int j = i;
+			while (j + 1 < n && Double.compare(all[j + 1][0], all[i][0]) == 0) {
+				j++;
+			}
+			double rank = (i + j) / 2.0 + 1;
+			for (int k = i; k <= j; k++) {
+				if (all[k][1] == 0) {
+					rankSumX += rank;
+				}
+			}
+			double ties = j - i + 1;
+			tieCorrection += ties * ties * ties - ties;
+			i = j + 1;
+		}
+
+		double u = rankSumX - n1 * (n1 + 1) / 2.0;
+		double mean = n1 * (double) n2 / 2;
+		double variance = n1 * (double) n2 / 12 * ((n + 1) - tieCorrection / ((double) n * (n - 1)));
+		if (variance <= 0) {
+			return 1;
+		}
+		double z = (Math.abs(u - mean) - 0.5) / Math.sqrt(variance);
+		return Math.min(1, 2 * (1 - normal(Math.max(z, 0))));
+	}
+
+	/**
+	 * Standard normal cumulative distribution function (Abramowitz and Stegun
+	 * 26.2.17).
+	 */
+	private static double normal(double z) {
+		double t = 1 / (1 + 0.2316419 * z);
+		double d = Math.exp(-z * z / 2) / Math.sqrt(2 * Math.PI);
+		double p = d * t * (0.319381530 + t * (-0.356563782 + t * (1.781477937 + t * (-1.821255978 + t
+			* 1.330274429))));
+		return 1 - p;
+	}
+
+	public static final class Change {
+
+		private final String cell;
+		private final String metric;
+		private final double medianBefore;
+		private final double medianAfter;
+		private final double relativeChange;
+		private final double pValue;
+
+		Change(String cell, String metric, double medianBefore, double medianAfter, double relativeChange,
+			double pValue) {
+			this.cell = cell;
+			this.metric = metric;
+			this.medianBefore = medianBefore;
+			this.medianAfter = medianAfter;
+			this.relativeChange = relativeChange;
+			this.pValue = pValue;
+		}
+
+		public boolean isRegression() {
+			return relativeChange > 0;
+		}
+
+		public String getCell() {
+			return cell;
+		}
+
+		public String getMetric() {
+			return metric;
+		}
+
+		public double getRelativeChange() {
+			return relativeChange;
+		}
+
+		public double getPValue() {
+			return pValue;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-11s %-40s %-14s median %s -> %s (%s) p=%.4f", isRegression() ? "REGRESSION"
+				: "IMPROVEMENT", cell, metric, format(medianBefore), format(medianAfter),
+				Double.isInfinite(relativeChange) ? "timeout" : String.format("%+.1f%%", relativeChange * 100),
+				pValue);
+		}
+
+		private static String format(double value) {
+			return Double.isInfinite(value) ? "timeout" : String.format("%.1f", value);
+		}
+	}
+}
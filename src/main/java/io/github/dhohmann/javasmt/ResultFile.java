@@ -0,0 +1,86 @@
+package io.github.dhohmann.javasmt;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result file as written by {@link Prototype}, i.e. a semicolon separated CSV
+ * file with a header line.
+ */
+public class ResultFile {
+
+	public static final String SEPARATOR = ";";
+
+	private final List<String> header;
+	private final List<List<String>> lines = new ArrayList<>();
+
+	public ResultFile(List<String> header) {
+		this.header = new ArrayList<>(header);
+	}
+
+	public static ResultFile read(Path file) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String headerLine = reader.readLine();
+			if (headerLine == null) {
+				throw new IOException("Result file " + file + " is empty");
+			}
+			ResultFile result = new ResultFile(Arrays.asList(headerLine.split(SEPARATOR, -1)));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isBlank()) {
+					continue;
+				}
+				List<String> values = Arrays.asList(line.split(SEPARATOR, -1));
+				if (values.size() != result.header.size()) {
+					throw new IOException("Line does not match header of " + file + ": " + line);
+				}
+				result.lines.add(values);
+			}
+			return result;
+		}
+	}
+
+	public List<String> getHeader() {
+		return Collections.unmodifiableList(header);
+	}
+
+	public List<List<String>> getLines() {
+		return Collections.unmodifiableList(lines);
+	}
+
+	public void addLine(List<String> line) {
+		if (line.size() != header.size()) {
+			throw new IllegalArgumentException("Line does not match header: " + line);
+		}
+		lines.add(new ArrayList<>(line));
+	}
+
+	public boolean hasColumn(String column) {
+		return header.contains(column);
+	}
+
+	/**
+	 * @return the value of the given column or {@code null} if the file does not
+	 *         contain the column
+	 */
+	public String get(List<String> line, String column) {
+		int index = header.indexOf(column);
+		return index < 0 ? null : line.get(index);
+	}
+
+	public void write(Path file) throws IOException {
+		List<String> content = new ArrayList<>(lines.size() + 1);
+		content.add(String.join(SEPARATOR, header));
+		for (List<String> line : lines) {
+			content.add(String.join(SEPARATOR, line));
+		}
+		Files.write(file, content, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,172 @@
+package io.github.dhohmann.javasmt;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.github.dhohmann.javasmt.Prototype.LOGGER;
+
+/**
+ * Append-only journal of a sweep. Every iteration of a cell is recorded when it
+ * starts and, together with its result line, when it finishes. Each record is
+ * forced to disk before the run continues, so after a crash of the JVM the
+ * journal tells which iterations completed and a resumed sweep only repeats
+ * the missing ones.
+ */
+public class ResultJournal implements Closeable {
+
+	public static final String EXTENSION = ".journal";
+	/**
+	 * Number of started but unfinished attempts after which an iteration is
+	 * considered to crash the JVM reproducibly and is skipped.
+	 */
+	public static final int MAX_ATTEMPTS = 3;
+
+	private static final String STARTED = "started";
+	private static final String DONE = "done";
+	private static final String FAILED = "failed";
+	private static final String FIELD_SEPARATOR = "\t";
+
+	private final Path file;
+	private final FileChannel channel;
+	private final Set<String> completed = new HashSet<>();
+	private final Map<String, Integer> attempts = new HashMap<>();
+	private final List<List<String>> results = new ArrayList<>();
+
+	private ResultJournal(Path file) throws IOException {
+		this.file = file;
+		long length = 0;
+		if (Files.exists(file)) {
+			length = read();
+		}
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		// drop a record interrupted by a crash
+		channel.truncate(length);
+		channel.position(length);
+	}
+
+	/**
+	 * Opens a journal, reading all records already present.
+	 */
+	public static ResultJournal open(Path file) throws IOException {
+		return new ResultJournal(file);
+	}
+
+	/**
+	 * @return the length in bytes of all complete records
+	 */
+	private long read() throws IOException {
+		String content = Files.readString(file, StandardCharsets.UTF_8);
+		String[] records = content.split("\n", -1);
+		// the last element is either empty or a record interrupted by a crash
+		for (int i = 0; i < records.length - 1; i++) {
+			String[] fields = records[i].split(FIELD_SEPARATOR, -1);
+			if (fields.length < 2) {
+				continue;
+			}
+			String key = fields[1];
+			switch (fields[0]) {
+			case STARTED:
+				attempts.merge(key, 1, Integer::sum);
+				break;
+			case DONE:
+				if (fields.length == 3 && completed.add(key)) {
+					results.add(Arrays.asList(fields[2].split(ResultFile.SEPARATOR, -1)));
+				}
+				break;
+			case FAILED:
+				completed.add(key);
+				break;
+			default:
+				break;
+			}
+		}
+		return content.substring(0, content.lastIndexOf('\n') + 1).getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	public static String key(BenchmarkPlan.Cell cell, int iteration) {
+		return cell.getModel().getName() + "/" + cell.getVariant().getName() + "/" + cell.getBackend() + "/" + cell
+			.getTimeout() + "/" + iteration;
+	}
+
+	/**
+	 * @return {@code true} if the iteration finished in a previous run or has to
+	 *         be skipped because it crashed too often
+	 */
+	public synchronized boolean isCompleted(String key) {
+		return completed.contains(key);
+	}
+
+	/**
+	 * Records the start of an iteration.
+	 *
+	 * @return {@code false} if the iteration crashed {@link #MAX_ATTEMPTS} times
+	 *         before and was recorded as failed instead
+	 */
+	public synchronized boolean started(String key) throws IOException {
+		int previous = attempts.getOrDefault(key, 0);
+		if (previous >= MAX_ATTEMPTS) {
+			LOGGER.warning("Skipping " + key + " after " + previous + " crashed attempts");
+			append(FAILED, key, null);
+			completed.add(key);
+			return false;
+		} else if (previous > 0) {
+			LOGGER.info("Retrying " + key + " after " + previous + " crashed attempts");
+		}
+		attempts.put(key, previous + 1);
+		append(STARTED, key, null);
+		return true;
+	}
+
+	public synchronized void done(String key, List<String> line) throws IOException {
+		append(DONE, key, String.join(ResultFile.SEPARATOR, line));
+		completed.add(key);
+		results.add(line);
+	}
+
+	/**
+	 * @return the result lines of all finished iterations in the order they were
+	 *         recorded
+	 */
+	public synchronized List<List<String>> getResults() {
+		return Collections.unmodifiableList(new ArrayList<>(results));
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	private void append(String state, String key, String line) throws IOException {
+		StringBuilder record = new StringBuilder(state).append(FIELD_SEPARATOR).append(key);
+		if (line != null) {
+			record.append(FIELD_SEPARATOR).append(line);
+		}
+		write(record.append('\n').toString());
+	}
+
+	private void write(String record) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8));
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		channel.force(false);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,183 @@
+package io.github.dhohmann.javasmt;
+
+import com.microsoft.z3.Native;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.BasicLogManager;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.spldev.formula.expression.Formula;
+import org.spldev.formula.expression.atomic.literal.VariableMap;
+import org.spldev.formula.solver.SatSolver;
+import org.spldev.formula.solver.javasmt.FormulaToJavaSmt;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Solver context holding the JavaSMT representation of a model. In contrast to
+ * {@link org.spldev.formula.solver.javasmt.JavaSmtSolver} the converted
+ * formulas are accessible, so they can be written to disk, read back through
+ * the native parser of the solver and reused by several provers.
+ */
+public class SolverSession implements AutoCloseable {
+
+	public final ShutdownManager shutdownManager;
+	private final SolverContextFactory.Solvers solver;
+	private final SolverContext context;
+	private final List<BooleanFormula> constraints = new ArrayList<>();
+
+	private VariableMap variableMap;
+	private FormulaToJavaSmt translator;
+
+	public SolverSession(SolverContextFactory.Solvers solver) {
+		this.solver = solver;
+		try {
+			Configuration config = Configuration.defaultConfiguration();
+			LogManager logManager = BasicLogManager.create(config);
+			shutdownManager = ShutdownManager.create();
+			context = SolverContextFactory.createSolverContext(config, logManager, shutdownManager.getNotifier(),
+				solver);
+		} catch (InvalidConfigurationException e) {
+			throw new RuntimeException("Could not create solver " + solver, e);
+		}
+	}
+
+	/**
+	 * Creates a session containing the given formula translated on the Java side.
+	 */
+	public static SolverSession fromFormula(Formula formula, SolverContextFactory.Solvers solver) {
+		SolverSession session = new SolverSession(solver);
+		session.addConstraint(session.translate(formula, VariableMap.fromExpression(formula)));
+		return session;
+	}
+
+	/**
+	 * Creates a session containing the formula of an SMT-LIB2 file read by the
+	 * native parser of the solver.
+	 */
+	public static SolverSession fromSmtLib(Path file, SolverContextFactory.Solvers solver) throws IOException {
+		String script = Files.readString(file, StandardCharsets.UTF_8);
+		SolverSession session = new SolverSession(solver);
+		try {
+			session.addConstraint(session.getFormulaManager().parse(script));
+		} catch (IllegalArgumentException e) {
+			session.close();
+			throw new IOException("Could not parse " + file, e);
+		}
+		return session;
+	}
+
+	/**
+	 * Translates a formula into the context of this session without asserting
+	 * it. Formulas sharing the same variable map share their solver variables.
+	 */
+	public BooleanFormula translate(Formula formula, VariableMap variables) {
+		if (translator == null || variableMap != variables) {
+			variableMap = variables;
+			translator = new FormulaToJavaSmt(context, variables);
+		}
+		return translator.nodeToFormula(formula);
+	}
+
+	public void addConstraint(BooleanFormula constraint) {
+		constraints.add(constraint);
+	}
+
+	public List<BooleanFormula> getConstraints() {
+		return Collections.unmodifiableList(constraints);
+	}
+
+	/**
+	 * @return the conjunction of all constraints of this session
+	 */
+	public BooleanFormula getFormula() {
+		return getBooleanFormulaManager().and(constraints);
+	}
+
+	/**
+	 * Creates a new prover containing all constraints of this session. The caller
+	 * is responsible for closing the prover.
+	 */
+	public ProverEnvironment newProver(SolverContext.ProverOptions... options) throws InterruptedException {
+		ProverEnvironment prover = context.newProverEnvironment(options);
+		for (BooleanFormula constraint : constraints) {
+			prover.addConstraint(constraint);
+		}
+		return prover;
+	}
+
+	public SatSolver.SatResult hasSolution() {
+		return hasSolution(null);
+	}
+
+	/**
+	 * Checks satisfiability and collects the statistics of the prover afterwards.
+	 *
+	 * @param statistics receives the statistics on the calling thread, may be
+	 *                   {@code null}
+	 */
+	public SatSolver.SatResult hasSolution(SolverStatistics statistics) {
+		try (ProverEnvironment prover = newProver()) {
+			try {
+				return prover.isUnsat() ? SatSolver.SatResult.FALSE : SatSolver.SatResult.TRUE;
+			} finally {
+				if (statistics != null) {
+					statistics.update(prover.getStatistics());
+				}
+			}
+		} catch (SolverException | InterruptedException e) {
+			return SatSolver.SatResult.TIMEOUT;
+		}
+	}
+
+	/**
+	 * Limits each satisfiability check of Z3 contexts created afterwards to the
+	 * given number of resource units. The limit is deterministic in contrast to a
+	 * wall-clock timeout, exceeding it results in
+	 * {@link SatSolver.SatResult#TIMEOUT}.
+	 *
+	 * @param limit resource units, {@code 0} disables the limit
+	 */
+	public static synchronized void setResourceLimit(SolverContextFactory.Solvers solver, long limit) {
+		if (solver != SolverContextFactory.Solvers.Z3) {
+			throw new IllegalArgumentException("Resource limits are only supported for Z3, not " + solver);
+		}
+		// JavaSMT loads the native library when the first context is created
+		new SolverSession(solver).close();
+		Native.globalParamSet("rlimit", Long.toString(limit));
+	}
+
+	public SolverContextFactory.Solvers getSolver() {
+		return solver;
+	}
+
+	public SolverContext getContext() {
+		return context;
+	}
+
+	public FormulaManager getFormulaManager() {
+		return context.getFormulaManager();
+	}
+
+	public BooleanFormulaManager getBooleanFormulaManager() {
+		return context.getFormulaManager().getBooleanFormulaManager();
+	}
+
+	@Override
+	public void close() {
+		context.close();
+	}
+}
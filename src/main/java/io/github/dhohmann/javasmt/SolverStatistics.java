@@ -0,0 +1,76 @@
+package io.github.dhohmann.javasmt;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Effort counters reported by a solver backend after a satisfiability check.
+ * In contrast to wall-clock times, decisions, conflicts, propagations and the
+ * resource count do not depend on the load of the host and can be compared
+ * between machines. The peak memory is not deterministic, it depends on the
+ * allocator and on other contexts of the process. The values are not
+ * synchronized, they must only be read after the check finished.
+ */
+public class SolverStatistics {
+
+	public static final String DECISIONS = "decisions";
+	public static final String CONFLICTS = "conflicts";
+	public static final String PROPAGATIONS = "propagations";
+	public static final String RLIMIT = "rlimit";
+	public static final String MEMORY = "memory";
+
+	public static final List<String> COLUMNS = Collections.unmodifiableList(Arrays.asList(DECISIONS, CONFLICTS,
+		PROPAGATIONS, RLIMIT, MEMORY));
+
+	/**
+	 * Statistic names of the different backends for each column, the first present
+	 * one is used.
+	 */
+	private static final Map<String, List<String>> KEYS = new LinkedHashMap<>();
+
+	static {
+		KEYS.put(DECISIONS, Arrays.asList("decisions", "sat decisions", "Decisions"));
+		KEYS.put(CONFLICTS, Arrays.asList("conflicts", "sat conflicts", "Conflicts"));
+		KEYS.put(PROPAGATIONS, Arrays.asList("propagations", "sat propagations 2ary", "Propagations"));
+		KEYS.put(RLIMIT, Arrays.asList("rlimit count"));
+		KEYS.put(MEMORY, Arrays.asList("max memory", "memory", "Memory"));
+	}
+
+	private final Map<String, String> values = new LinkedHashMap<>();
+
+	/**
+	 * Takes the relevant values of the statistics reported by a prover.
+	 */
+	public void update(Map<String, String> statistics) {
+		values.clear();
+		for (Map.Entry<String, List<String>> column : KEYS.entrySet()) {
+			for (String key : column.getValue()) {
+				String value = statistics.get(key);
+				if (value != null) {
+					values.put(column.getKey(), value.trim());
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the value of the given column or {@code -1} if the backend did not
+	 *         report it
+	 */
+	public String get(String column) {
+		return values.getOrDefault(column, "-1");
+	}
+
+	public boolean isEmpty() {
+		return values.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "SolverStatistics" + values;
+	}
+}
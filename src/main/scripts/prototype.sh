@@ -0,0 +1,12 @@
+#!/bin/sh
+# Starts the prototype with the class data archive of the cds profile if it
+# was built. The archive is only valid for the exact jar it was trained with,
+# so both are referenced by absolute path.
+DIR=$(cd "$(dirname "$0")" && pwd)
+JAR="$DIR/@project.build.finalName@.jar"
+ARCHIVE="$DIR/@cds.archive.name@"
+
+if [ -f "$ARCHIVE" ]; then
+	exec java -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto $JAVA_OPTS -jar "$JAR" "$@"
+fi
+exec java $JAVA_OPTS -jar "$JAR" "$@"